@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.entity.DataTypesEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class AsyncDAOTest extends AbsDataTypesDaoTest {
+
+    private static final int ENTITY_COUNT = 100;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private AsyncDAO<Long, DataTypesEntity> mAsyncDao;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mAsyncDao = new AsyncDAO<Long, DataTypesEntity>(mDao);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        //waits for queued writes before table is cleared
+        mAsyncDao.clear(null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        mAsyncDao.shutdown();
+        mAsyncDao = null;
+
+        super.tearDown();
+    }
+
+    public void testWritesAreAppliedInOrder() throws Exception {
+        List<Future<Long>> futures = new ArrayList<>(ENTITY_COUNT);
+
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            futures.add(mAsyncDao.insertEntity(createEntity(i + 1), null));
+        }
+
+        //writer is serial, last write completes after all previous ones
+        futures.get(ENTITY_COUNT - 1).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        for (Future<Long> future : futures) {
+            assertTrue("Write has to be completed", future.isDone());
+            assertTrue("Wrong row id", future.get() > 0);
+        }
+
+        long rowCount = mAsyncDao.getRowCount(null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals("Wrong count", ENTITY_COUNT, rowCount);
+    }
+
+    public void testCancelQueuedWrite() throws Exception {
+        final CountDownLatch writerBlocked = new CountDownLatch(1);
+        final CountDownLatch releaseWriter = new CountDownLatch(1);
+
+        Future<Void> blockingWrite = mAsyncDao.submitWrite(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                writerBlocked.countDown();
+                releaseWriter.await();
+                return null;
+            }
+        }, null);
+
+        assertTrue(writerBlocked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Future<Long> queuedWrite = mAsyncDao.insertEntity(createEntity(1), null);
+        assertTrue("Queued write has to be cancelled", queuedWrite.cancel(false));
+
+        releaseWriter.countDown();
+        blockingWrite.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        boolean contains = mAsyncDao.contains(1L, null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertFalse("Cancelled write must not be applied", contains);
+    }
+}
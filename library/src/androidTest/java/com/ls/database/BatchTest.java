@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.dao.PrimitiveDataTypesDAO;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.entity.EnumValue;
+import com.ls.database.entity.PrimitiveDataTypesEntity;
+import com.ls.database.model.TableChangeEvent;
+import com.ls.database.model.TableObserver;
+
+import android.database.SQLException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class BatchTest extends AbsDataTypesDaoTest {
+
+    private PrimitiveDataTypesDAO mPrimitiveDao;
+
+    private final List<TableChangeEvent> mEvents = new ArrayList<>();
+
+    private final TableObserver mObserver = new TableObserver() {
+
+        @Override
+        public void onTablesChanged(TableChangeEvent event) {
+            mEvents.add(event);
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mPrimitiveDao = new PrimitiveDataTypesDAO(mDatabaseRegister);
+        mDao.insertEntities(Arrays.asList(createEntity(1, "Test 1"), createEntity(2, "Test 2")), true);
+
+        mDatabaseRegister.addTableObserver(DAOTestingHelper.DB_NAME, mObserver, Tables.DataTypes.NAME);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mDatabaseRegister.removeTableObserver(DAOTestingHelper.DB_NAME, mObserver);
+        mPrimitiveDao = null;
+
+        super.tearDown();
+    }
+
+    public void testMixedOperations() {
+        Batch batch = new Batch();
+        int firstInsert = batch.insert(mDao, createEntity(3, "Test 3"));
+        int update = batch.update(mDao, 1L, createEntity(1, "Updated"));
+        int delete = batch.delete(mDao, 2L);
+        int secondInsert = batch.insert(mDao, createEntity(4, "Test 4"));
+        int primitiveInsert = batch.insert(mPrimitiveDao, createPrimitiveEntity(5));
+        int missingUpdate = batch.update(mDao, 10L, createEntity(10, "Missing"));
+        assertEquals(6, batch.size());
+
+        long[] results = batch.execute();
+
+        assertEquals(3L, results[firstInsert]);
+        assertEquals(1L, results[update]);
+        assertEquals(1L, results[delete]);
+        assertEquals(4L, results[secondInsert]);
+        assertEquals(5L, results[primitiveInsert]);
+        assertEquals(0L, results[missingUpdate]);
+        assertEquals("Batch has to be cleared after execution", 0, batch.size());
+
+        assertEquals("Updated", mDao.selectEntities(1L).get(0).getString());
+        assertTrue(mDao.selectEntities(2L).isEmpty());
+        assertEquals(4, mDao.getRowCount());
+
+        assertEquals("Batch has to be committed once", 1, mEvents.size());
+        assertTrue(mEvents.get(0).isTableChanged(Tables.DataTypes.NAME));
+    }
+
+    public void testChangedKeysAreReported() {
+        Batch batch = new Batch();
+        batch.insert(mDao, createEntity(3, "Test 3"));
+        batch.insert(mDao, createEntity(4, "Test 4"));
+        batch.update(mDao, 1L, createEntity(1, "Updated"));
+        batch.delete(mDao, 2L);
+        batch.execute();
+
+        assertEquals(1, mEvents.size());
+        assertEquals(new HashSet<Object>(Arrays.asList(1L, 2L, 3L, 4L)), mEvents.get(0).getKeys(Tables.DataTypes.NAME));
+    }
+
+    public void testFailedBatchIsRolledBack() {
+        Batch batch = new Batch();
+        batch.insert(mDao, createEntity(3, "Test 3"));
+        batch.delete(mDao, 1L);
+        //key of second row is changed to key of existing row
+        batch.update(mDao, 2L, createEntity(3, "Duplicate"));
+
+        try {
+            batch.execute();
+            fail("Constraint violation is not thrown");
+        } catch (SQLException e) {
+            //expected
+        }
+
+        assertEquals(2, mDao.getRowCount());
+        assertEquals("Test 1", mDao.selectEntities(1L).get(0).getString());
+        assertEquals("Test 2", mDao.selectEntities(2L).get(0).getString());
+        assertTrue("Rolled back batch must not be reported", mEvents.isEmpty());
+    }
+
+    public void testCachedEntitiesAreInvalidated() {
+        mDao.setEntityCache(new LruEntityCache<Long, DataTypesEntity>(10));
+        mDao.selectEntities(1L);
+        mDao.selectEntities(2L);
+
+        Batch batch = new Batch();
+        batch.update(mDao, 1L, createEntity(1, "Updated"));
+        batch.delete(mDao, 2L);
+        batch.execute();
+
+        assertEquals("Updated", mDao.selectEntities(1L).get(0).getString());
+        assertTrue(mDao.selectEntities(2L).isEmpty());
+    }
+
+    public void testEmptyBatch() {
+        Batch batch = new Batch();
+
+        assertEquals(0, batch.execute().length);
+        assertTrue(mEvents.isEmpty());
+    }
+
+    private PrimitiveDataTypesEntity createPrimitiveEntity(int id) {
+        PrimitiveDataTypesEntity entity = new PrimitiveDataTypesEntity();
+        entity.setId(id);
+        entity.setString("Primitive " + id);
+        entity.setEnumValue(EnumValue.TEST_1);
+
+        return entity;
+    }
+}
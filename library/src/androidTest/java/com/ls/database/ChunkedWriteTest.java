@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.dao.DataTypesDAO;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.model.BatchWriteOptions;
+
+import android.test.InstrumentationTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class ChunkedWriteTest extends InstrumentationTestCase {
+
+    private DatabaseRegister mDatabaseRegister;
+    private DataTypesDAO mDao;
+    private Database mDatabase;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDatabaseRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+        mDatabaseRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()));
+
+        mDatabase = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+
+        mDao = new DataTypesDAO(mDatabaseRegister);
+        mDao.clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        mDao.clear();
+        mDao = null;
+        mDatabase = null;
+
+        mDatabaseRegister.shutdownAndClear();
+        mDatabaseRegister = null;
+    }
+
+    public void testChunkedWriteInsideTransactionIsRejected() {
+        List<DataTypesEntity> entities = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            DataTypesEntity entity = new DataTypesEntity();
+            entity.setId(i);
+            entities.add(entity);
+        }
+
+        mDatabase.open();
+        try {
+            mDatabase.beginTransaction();
+            try {
+                mDao.insertEntities(entities, new BatchWriteOptions(2, 0, false, null));
+                fail("Chunked write is run inside of transaction");
+            } catch (IllegalStateException e) {
+                //expected
+            } finally {
+                mDatabase.endTransaction();
+            }
+        } finally {
+            mDatabase.close();
+        }
+
+        assertEquals("Nothing has to be written", 0, mDao.getRowCount());
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.dao.DataTypesDAO;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.entity.EnumValue;
+import com.ls.database.model.CursorParser;
+import com.ls.database.util.Logger;
+
+import android.database.Cursor;
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares per row cost of resolving columns by name through {@link Cursor#getColumnIndex(String)}
+ * with column indexes cached by {@link CursorParser}, and allocations of boxed and primitive reads.
+ * Timings are only logged, assertions check counts of lookups which don't depend on device speed.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class CursorParserBenchmarkTest extends InstrumentationTestCase {
+
+    private static final int ROW_COUNT = 2000;
+    private static final int ITERATIONS = 5;
+
+    private static final String[] COLUMNS = {
+            Tables.DataTypes.COLUMN_ID,
+            Tables.DataTypes.COLUMN_STRING,
+            Tables.DataTypes.COLUMN_BYTE,
+            Tables.DataTypes.COLUMN_SHORT,
+            Tables.DataTypes.COLUMN_INTEGER,
+            Tables.DataTypes.COLUMN_LONG,
+            Tables.DataTypes.COLUMN_FLOAT,
+            Tables.DataTypes.COLUMN_DOUBLE,
+            Tables.DataTypes.COLUMN_BOOLEAN,
+            Tables.DataTypes.COLUMN_BLOB,
+            Tables.DataTypes.COLUMN_ENUM
+    };
+
+    private static Logger mLogger = new Logger(CursorParserBenchmarkTest.class.getSimpleName());
+
+    private DatabaseRegister mDatabaseRegister;
+    private DataTypesDAO mDao;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDatabaseRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+        mDatabaseRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()));
+
+        mDao = new DataTypesDAO(mDatabaseRegister);
+        mDao.clear();
+        mDao.insertEntities(generateEntities(), true);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        mDao.clear();
+
+        mDatabaseRegister.shutdownAndClear();
+        mDatabaseRegister = null;
+    }
+
+    public void testColumnIndexCaching() {
+        Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        NameLookupCountingCursor cursor = null;
+        try {
+            database.open();
+
+            cursor = new NameLookupCountingCursor(database.query(Tables.DataTypes.NAME, null, null, null, null, null,
+                    null, null));
+            assertEquals("Wrong count of rows", ROW_COUNT, cursor.getCount());
+
+            long lookupTime = Long.MAX_VALUE;
+            long cachedTime = Long.MAX_VALUE;
+            int lookupNulls = 0;
+            int cachedNulls = 0;
+
+            int lookups = 0;
+            int cachedLookups = 0;
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                cursor.resetNameLookupCount();
+                long start = System.nanoTime();
+                lookupNulls = readByColumnLookup(cursor);
+                lookupTime = Math.min(lookupTime, System.nanoTime() - start);
+                lookups = cursor.getNameLookupCount();
+
+                cursor.resetNameLookupCount();
+                start = System.nanoTime();
+                cachedNulls = readByCursorParser(cursor);
+                cachedTime = Math.min(cachedTime, System.nanoTime() - start);
+                cachedLookups = cursor.getNameLookupCount();
+            }
+
+            mLogger.info("Per row, " + COLUMNS.length + " columns: cursor lookup " + lookupTime / ROW_COUNT
+                    + " ns, cached indexes " + cachedTime / ROW_COUNT + " ns");
+
+            assertEquals("Both ways have to read same values", lookupNulls, cachedNulls);
+            assertEquals("Columns are looked up for every row", ROW_COUNT * COLUMNS.length, lookups);
+            assertTrue("Columns have to be looked up once per cursor, not per row", cachedLookups <= COLUMNS.length);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+
+            database.close();
+        }
+    }
+
+    public void testPrimitiveReadsAllocation() {
+        Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        Cursor cursor = null;
+        try {
+            database.open();
+
+            cursor = database.query(Tables.DataTypes.NAME, null, null, null, null, null, null, null);
+            CursorParser parser = new CursorParser(cursor);
+
+            //warm up cursor window and column indexes
+            double boxedSum = readBoxed(cursor, parser);
+
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            boxedSum = readBoxed(cursor, parser);
+            int boxedAllocations = Debug.getThreadAllocCount();
+            Debug.stopAllocCounting();
+
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            double primitiveSum = readPrimitive(cursor, parser);
+            int primitiveAllocations = Debug.getThreadAllocCount();
+            Debug.stopAllocCounting();
+
+            parser.releaseResources();
+
+            mLogger.info("Allocations for " + ROW_COUNT + " rows: boxed reads " + boxedAllocations
+                    + ", primitive reads " + primitiveAllocations);
+
+            assertEquals("Both ways have to read same values", boxedSum, primitiveSum, 0d);
+            assertTrue("Primitive reads have to allocate less objects", primitiveAllocations < boxedAllocations);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+
+            database.close();
+        }
+    }
+
+    private double readBoxed(Cursor cursor, CursorParser parser) {
+        double sum = 0;
+
+        cursor.moveToFirst();
+        do {
+            Long id = parser.readLong(Tables.DataTypes.COLUMN_ID);
+            Integer anInt = parser.readInteger(Tables.DataTypes.COLUMN_INTEGER);
+            Long aLong = parser.readLong(Tables.DataTypes.COLUMN_LONG);
+            Double aDouble = parser.readDouble(Tables.DataTypes.COLUMN_DOUBLE);
+            Boolean aBoolean = parser.readBoolean(Tables.DataTypes.COLUMN_BOOLEAN);
+
+            sum += id + anInt + aLong + aDouble + (aBoolean ? 1 : 0);
+        } while (cursor.moveToNext());
+
+        return sum;
+    }
+
+    private double readPrimitive(Cursor cursor, CursorParser parser) {
+        double sum = 0;
+
+        cursor.moveToFirst();
+        do {
+            long id = parser.readLongPrimitive(Tables.DataTypes.COLUMN_ID, 0L);
+            int anInt = parser.readIntPrimitive(Tables.DataTypes.COLUMN_INTEGER, 0);
+            long aLong = parser.readLongPrimitive(Tables.DataTypes.COLUMN_LONG, 0L);
+            double aDouble = parser.readDoublePrimitive(Tables.DataTypes.COLUMN_DOUBLE, 0d);
+            boolean aBoolean = parser.readBooleanPrimitive(Tables.DataTypes.COLUMN_BOOLEAN, false);
+
+            sum += id + anInt + aLong + aDouble + (aBoolean ? 1 : 0);
+        } while (cursor.moveToNext());
+
+        return sum;
+    }
+
+    private int readByColumnLookup(Cursor cursor) {
+        int nulls = 0;
+
+        cursor.moveToFirst();
+        do {
+            for (String column : COLUMNS) {
+                if (cursor.isNull(cursor.getColumnIndex(column))) {
+                    nulls++;
+                }
+            }
+        } while (cursor.moveToNext());
+
+        return nulls;
+    }
+
+    private int readByCursorParser(Cursor cursor) {
+        int nulls = 0;
+
+        CursorParser parser = new CursorParser(cursor);
+
+        cursor.moveToFirst();
+        do {
+            for (String column : COLUMNS) {
+                if (parser.isNull(parser.getColumnIndex(column))) {
+                    nulls++;
+                }
+            }
+        } while (cursor.moveToNext());
+
+        parser.releaseResources();
+
+        return nulls;
+    }
+
+    private List<DataTypesEntity> generateEntities() {
+        List<DataTypesEntity> result = new ArrayList<>();
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            DataTypesEntity entity = new DataTypesEntity();
+            entity.setId(i + 1);
+            entity.setString("Test " + i);
+            entity.setByte((byte) i);
+            entity.setShort((short) i);
+            //values out of range of wrapper caches, so boxing allocates
+            entity.setInt(100000 + i);
+            entity.setLong(100000L + i);
+            entity.setFloat(i + 0.5f);
+            entity.setDouble(i + 0.25d);
+            entity.setBoolean(i % 2 == 0);
+            entity.setBytes("test bytes".getBytes());
+            entity.setEnumValue(EnumValue.TEST_1);
+
+            result.add(entity);
+        }
+
+        return result;
+    }
+}
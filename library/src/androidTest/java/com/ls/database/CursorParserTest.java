@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.dao.DataTypesDAO;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.model.CursorParser;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.test.InstrumentationTestCase;
+
+import java.util.Arrays;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class CursorParserTest extends InstrumentationTestCase {
+
+    private DatabaseRegister mDatabaseRegister;
+    private DataTypesDAO mDao;
+    private Database mDatabase;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDatabaseRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+        mDatabaseRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()));
+
+        mDatabase = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+
+        DataTypesEntity entity = new DataTypesEntity();
+        entity.setId(1);
+        entity.setString("First");
+        entity.setLong(2L);
+
+        DataTypesEntity nullStringEntity = new DataTypesEntity();
+        nullStringEntity.setId(2);
+
+        mDao = new DataTypesDAO(mDatabaseRegister);
+        mDao.clear();
+        mDao.insertEntities(Arrays.asList(entity, nullStringEntity), true);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        mDao.clear();
+        mDao = null;
+        mDatabase = null;
+
+        mDatabaseRegister.shutdownAndClear();
+        mDatabaseRegister = null;
+    }
+
+    public void testDuplicatedColumnNameResolvesFirstIndex() {
+        Cursor cursor = null;
+        try {
+            mDatabase.open();
+
+            cursor = mDatabase.rawQuery("SELECT " + Tables.DataTypes.COLUMN_STRING + " AS value, "
+                    + Tables.DataTypes.COLUMN_LONG + " AS value FROM " + Tables.DataTypes.NAME, null);
+            assertTrue(cursor.moveToFirst());
+
+            CursorParser parser = new CursorParser(cursor);
+            assertEquals(cursor.getColumnIndex("value"), parser.getColumnIndex("value"));
+            assertEquals(0, parser.getColumnIndex("value"));
+            assertEquals("First", parser.readString("value"));
+            parser.releaseResources();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+
+            mDatabase.close();
+        }
+    }
+
+    public void testReadStringIntoBuffer() {
+        Cursor cursor = null;
+        try {
+            mDatabase.open();
+
+            cursor = mDatabase.query(Tables.DataTypes.NAME, new String[]{Tables.DataTypes.COLUMN_STRING}, null, null,
+                    null, null, Tables.DataTypes.COLUMN_ID, null);
+            CursorParser parser = new CursorParser(cursor);
+            //smaller than value, so buffer has to grow
+            CharArrayBuffer buffer = new CharArrayBuffer(2);
+
+            assertTrue(cursor.moveToFirst());
+            parser.readString(Tables.DataTypes.COLUMN_STRING, buffer);
+            assertEquals("First".length(), buffer.sizeCopied);
+            assertEquals("First", new String(buffer.data, 0, buffer.sizeCopied));
+
+            assertTrue(cursor.moveToNext());
+            parser.readString(0, buffer);
+            assertEquals("NULL value has to copy nothing", 0, buffer.sizeCopied);
+
+            parser.releaseResources();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+
+            mDatabase.close();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.util.Logger;
+
+import android.test.InstrumentationTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class DatabaseOpenCloseTest extends InstrumentationTestCase {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int OPENS_PER_THREAD = 2000;
+    private static final long LONG_KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long SHORT_KEEP_ALIVE_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private static Logger mLogger = new Logger(DatabaseOpenCloseTest.class.getSimpleName());
+
+    private DatabaseRegister mDatabaseRegister;
+    private DatabaseRegister mKeepAliveRegister;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDatabaseRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+        mDatabaseRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        mDatabaseRegister.shutdownAndClear();
+        mDatabaseRegister = null;
+
+        if (mKeepAliveRegister != null) {
+            mKeepAliveRegister.shutdownAndClear();
+            mKeepAliveRegister = null;
+        }
+    }
+
+    public void testConcurrentOpenClose() throws Exception {
+        final Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        List<Future<Void>> futures = new ArrayList<>(THREAD_COUNT);
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            futures.add(executor.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+
+                    for (int j = 0; j < OPENS_PER_THREAD; j++) {
+                        database.open();
+                        try {
+                            assertTrue("Database has to be opened", database.isOpened());
+                            database.inTransaction();
+                        } finally {
+                            database.close();
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertFalse("Database has to be closed", database.isOpened());
+
+        mLogger.debug("Physical opens: " + database.getPhysicalOpenCount()
+                + ", contended: " + database.getLockContentionCount()
+                + ", wait time: " + database.getLockWaitTimeMillis() + " ms");
+    }
+
+    public void testLastCloseIsNotLostWhileOpening() throws Exception {
+        final Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        List<Future<Void>> futures = new ArrayList<>(THREAD_COUNT);
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final boolean nested = i % 2 == 0;
+
+            futures.add(executor.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+
+                    //counter keeps moving between 1 and 2, so last close races with lock-free open
+                    for (int j = 0; j < OPENS_PER_THREAD; j++) {
+                        database.open();
+                        if (nested) {
+                            database.open();
+                            database.close();
+                        }
+                        database.close();
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals("Every close has to be counted", 0, database.getOpenCount());
+        assertFalse("Database has to be closed", database.isOpened());
+    }
+
+    public void testOpenIsNestable() {
+        Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+
+        database.open();
+        database.open();
+        database.close();
+
+        assertTrue("Database has to stay opened", database.isOpened());
+
+        database.close();
+
+        assertFalse("Database has to be closed", database.isOpened());
+        assertEquals("Connection has to be opened once", 1, database.getPhysicalOpenCount());
+    }
+
+    public void testOpenWithinKeepAliveReusesConnection() {
+        Database database = createKeepAliveDatabase(LONG_KEEP_ALIVE_MILLIS);
+
+        database.open();
+        database.close();
+
+        assertFalse("Database has to be closed", database.isOpened());
+        assertTrue("Connection has to be kept alive", database.isConnectionOpened());
+
+        database.open();
+        database.close();
+
+        assertEquals("Connection has to be opened once", 1, database.getPhysicalOpenCount());
+        assertEquals("Reopen has to reuse connection", 1, database.getAvoidedOpenCount());
+    }
+
+    public void testIdleConnectionIsClosedAfterKeepAlive() throws Exception {
+        Database database = createKeepAliveDatabase(SHORT_KEEP_ALIVE_MILLIS);
+
+        database.open();
+        database.close();
+
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+        while (database.isConnectionOpened() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(SHORT_KEEP_ALIVE_MILLIS / 2);
+        }
+
+        assertFalse("Idle connection has to be closed", database.isConnectionOpened());
+
+        database.open();
+        database.close();
+
+        assertEquals("Closed connection has to be opened again", 2, database.getPhysicalOpenCount());
+        assertEquals(0, database.getAvoidedOpenCount());
+    }
+
+    private Database createKeepAliveDatabase(long keepAliveMillis) {
+        mKeepAliveRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+        mKeepAliveRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()), keepAliveMillis);
+
+        return mKeepAliveRegister.getDatabase(DAOTestingHelper.DB_NAME);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+import android.test.InstrumentationTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class DatabaseTuningTest extends InstrumentationTestCase {
+
+    private DatabaseRegister databaseRegister;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        databaseRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        databaseRegister.shutdownAndClear();
+        databaseRegister = null;
+
+        getInstrumentation().getTargetContext().deleteDatabase(TestingHelper.DB_NAME);
+    }
+
+    public void testReadHeavyTuning() {
+        databaseRegister.addDatabase(new TestingHelper(), DatabaseTuning.readHeavy());
+
+        Database database = databaseRegister.getDatabase(TestingHelper.DB_NAME);
+        try {
+            database.open();
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+                assertEquals("Wrong journal mode", "wal", readPragma(database, "journal_mode").toLowerCase());
+            }
+
+            assertEquals("Wrong synchronous mode", "1", readPragma(database, "synchronous"));
+            assertEquals("Wrong cache size", String.valueOf(-8 * 1024), readPragma(database, "cache_size"));
+            assertEquals("Wrong temp store", "2", readPragma(database, "temp_store"));
+        } finally {
+            database.close();
+        }
+    }
+
+    public void testLowMemoryTuning() {
+        databaseRegister.addDatabase(new TestingHelper(), DatabaseTuning.lowMemory());
+
+        Database database = databaseRegister.getDatabase(TestingHelper.DB_NAME);
+        try {
+            database.open();
+
+            assertEquals("Wrong cache size", "-512", readPragma(database, "cache_size"));
+            assertEquals("Wrong temp store", "1", readPragma(database, "temp_store"));
+        } finally {
+            database.close();
+        }
+    }
+
+    private String readPragma(Database database, String name) {
+        Cursor cursor = database.rawQuery("PRAGMA " + name, null);
+        try {
+            assertTrue("Pragma " + name + " has no value", cursor.moveToFirst());
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private class TestingHelper extends BaseSQLiteOpenHelper {
+
+        public static final String DB_NAME = "tuning_test_database.db";
+
+        public TestingHelper() {
+            super(getInstrumentation().getTargetContext(), DB_NAME, null, 1);
+        }
+
+        @Override
+        public List<TableInfo> getTablesInfo(Context context) {
+            List<TableInfo> tableInfo = new ArrayList<>();
+
+            tableInfo.add(new TableInfo(Tables.SimpleTable.NAME, Queries.CREATE_SIMPLE_DATA_TABLE));
+
+            return tableInfo;
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        }
+    }
+}
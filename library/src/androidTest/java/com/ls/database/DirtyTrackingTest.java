@@ -0,0 +1,201 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.model.TableChangeEvent;
+import com.ls.database.model.TableObserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class DirtyTrackingTest extends AbsDataTypesDaoTest {
+
+    private Database mDatabase;
+
+    private final List<TableChangeEvent> mEvents = new ArrayList<>();
+
+    private final TableObserver mObserver = new TableObserver() {
+
+        @Override
+        public void onTablesChanged(TableChangeEvent event) {
+            mEvents.add(event);
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDatabase = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        mDao.insertEntities(Arrays.asList(createEntity(1, "Test 1"), createEntity(2, "Test 2")), true);
+
+        mDao.enableDirtyTracking(10);
+        mDatabaseRegister.addTableObserver(DAOTestingHelper.DB_NAME, mObserver, Tables.DataTypes.NAME);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mDatabaseRegister.removeTableObserver(DAOTestingHelper.DB_NAME, mObserver);
+        mDao.disableDirtyTracking();
+        mDatabase = null;
+
+        super.tearDown();
+    }
+
+    public void testUnchangedUpdateIsSkipped() {
+        DataTypesEntity entity = mDao.selectEntities(1L).get(0);
+
+        assertEquals("Unchanged entity has to be reported as updated", 1, mDao.updateEntity(1L, entity));
+        assertTrue("Unchanged entity must not be written", mEvents.isEmpty());
+
+        entity.setString("Updated");
+        assertEquals(1, mDao.updateEntity(1L, entity));
+        assertEquals("Changed entity has to be written", 1, mEvents.size());
+
+        //written values are remembered, so repeated update is skipped too
+        assertEquals(1, mDao.updateEntity(1L, entity));
+        assertEquals("Repeated update must not be written", 1, mEvents.size());
+
+        assertEquals("Updated", mDao.selectEntities(1L).get(0).getString());
+    }
+
+    public void testOnlyChangedColumnsAreWritten() {
+        DataTypesEntity entity = mDao.selectEntities(1L).get(0);
+
+        //column changed behind the DAO is not overwritten, because entity doesn't change it
+        setColumn(1L, Tables.DataTypes.COLUMN_INTEGER, 100);
+
+        entity.setString("Updated");
+        mDao.updateEntity(1L, entity);
+
+        DataTypesEntity actualEntity = mDao.selectEntities(1L).get(0);
+        assertEquals("Updated", actualEntity.getString());
+        assertEquals("Unchanged column must not be written", 100, actualEntity.getInt());
+    }
+
+    public void testUnchangedUpdateOfDeletedRowReturnsZero() {
+        DataTypesEntity entity = mDao.selectEntities(1L).get(0);
+
+        mDatabase.open();
+        try {
+            mDatabase.execSQL("DELETE FROM " + Tables.DataTypes.NAME + " WHERE " + Tables.DataTypes.COLUMN_ID + "=?",
+                    new Object[]{1L});
+        } finally {
+            mDatabase.close();
+        }
+
+        assertEquals("Deleted row must not be reported as updated", 0, mDao.updateEntity(1L, entity));
+    }
+
+    public void testConcurrentWriteRewritesAllColumns() {
+        DataTypesEntity entity = mDao.selectEntities(1L).get(0);
+        setColumn(1L, Tables.DataTypes.COLUMN_INTEGER, 100);
+
+        //write made while changed columns are written invalidates the diff
+        TableObserver writingObserver = new TableObserver() {
+
+            private boolean mWritten;
+
+            @Override
+            public void onTablesChanged(TableChangeEvent event) {
+                if (!mWritten) {
+                    mWritten = true;
+                    mDao.updateEntity(2L, createEntity(2, "Concurrent"));
+                }
+            }
+        };
+
+        mDatabaseRegister.addTableObserver(DAOTestingHelper.DB_NAME, writingObserver, Tables.DataTypes.NAME);
+        try {
+            entity.setString("Updated");
+            assertEquals(1, mDao.updateEntity(1L, entity));
+        } finally {
+            mDatabaseRegister.removeTableObserver(DAOTestingHelper.DB_NAME, writingObserver);
+        }
+
+        DataTypesEntity actualEntity = mDao.selectEntities(1L).get(0);
+        assertEquals("Updated", actualEntity.getString());
+        assertEquals("Columns skipped by diff have to be written again", 1, actualEntity.getInt());
+    }
+
+    public void testUpdateWithoutSnapshotWritesAllColumns() {
+        setColumn(2L, Tables.DataTypes.COLUMN_INTEGER, 100);
+
+        mDao.updateEntity(2L, createEntity(2, "Updated"));
+
+        DataTypesEntity actualEntity = mDao.selectEntities(2L).get(0);
+        assertEquals("Updated", actualEntity.getString());
+        assertEquals("Entity without snapshot has to be fully written", 2, actualEntity.getInt());
+    }
+
+    public void testRolledBackUpdateIsNotRemembered() {
+        DataTypesEntity entity = mDao.selectEntities(1L).get(0);
+        entity.setString("Uncommitted");
+
+        mDatabase.open();
+        try {
+            mDatabase.beginTransaction();
+            try {
+                mDao.updateEntity(1L, entity);
+            } finally {
+                mDatabase.endTransaction();
+            }
+        } finally {
+            mDatabase.close();
+        }
+
+        //snapshot of rolled back values would skip this update
+        mDao.updateEntity(1L, entity);
+        assertEquals("Uncommitted", mDao.selectEntities(1L).get(0).getString());
+    }
+
+    public void testClearEntityCacheDropsSnapshots() {
+        DataTypesEntity entity = mDao.selectEntities(1L).get(0);
+
+        setColumn(1L, Tables.DataTypes.COLUMN_STRING, "Changed");
+        mDao.clearEntityCache();
+
+        mDao.updateEntity(1L, entity);
+        assertEquals("Test 1", mDao.selectEntities(1L).get(0).getString());
+    }
+
+    private void setColumn(long id, String column, Object value) {
+        mDatabase.open();
+        try {
+            mDatabase.execSQL("UPDATE " + Tables.DataTypes.NAME + " SET " + column + "=? WHERE "
+                    + Tables.DataTypes.COLUMN_ID + "=?", new Object[]{value, id});
+        } finally {
+            mDatabase.close();
+        }
+
+        mEvents.clear();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.model.CacheStats;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class EntityCacheTest extends AbsDataTypesDaoTest {
+
+    private static final int CACHE_SIZE = 2;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDao.insertEntities(Arrays.asList(createEntity(1, "Test 1"), createEntity(2, "Test 2"), createEntity(3, "Test 3")), true);
+
+        mDao.setEntityCache(new LruEntityCache<Long, DataTypesEntity>(CACHE_SIZE));
+    }
+
+    public void testHitsAndEvictions() {
+        mDao.selectEntities(1L);
+        mDao.selectEntities(1L);
+        mDao.selectEntities(2L);
+        mDao.selectEntities(3L);
+
+        CacheStats stats = mDao.getEntityCacheStats();
+        assertEquals("Wrong hit count", 1, stats.getHitCount());
+        assertEquals("Wrong miss count", 3, stats.getMissCount());
+        assertEquals("Wrong eviction count", 1, stats.getEvictionCount());
+        assertEquals("Wrong size", CACHE_SIZE, stats.getSize());
+    }
+
+    public void testWritesInvalidateCache() {
+        assertEquals("Test 1", mDao.selectEntities(1L).get(0).getString());
+
+        mDao.updateEntity(1L, createEntity(1, "Updated"));
+        assertEquals("Update has to invalidate cache", "Updated", mDao.selectEntities(1L).get(0).getString());
+
+        mDao.insertOrReplaceEntity(createEntity(1, "Replaced"));
+        assertEquals("Replace has to invalidate cache", "Replaced", mDao.selectEntities(1L).get(0).getString());
+
+        mDao.deleteEntity(1L);
+        assertTrue("Delete has to invalidate cache", mDao.selectEntities(1L).isEmpty());
+
+        mDao.insertEntity(createEntity(1, "Inserted"));
+        assertEquals("Insert has to invalidate cache", "Inserted", mDao.selectEntities(1L).get(0).getString());
+
+        mDao.clear();
+        assertTrue("Clear has to invalidate cache", mDao.selectEntities(1L).isEmpty());
+    }
+
+    public void testRolledBackWriteIsNotCached() {
+        Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+
+        database.open();
+        try {
+            database.beginTransaction();
+            try {
+                mDao.updateEntity(1L, createEntity(1, "Uncommitted"));
+
+                //uncommitted state is visible inside transaction, but not cached
+                assertEquals("Uncommitted", mDao.selectEntities(1L).get(0).getString());
+            } finally {
+                database.endTransaction();
+            }
+        } finally {
+            database.close();
+        }
+
+        List<DataTypesEntity> entities = mDao.selectEntities(1L);
+        assertEquals("Rolled back state has to be evicted", "Test 1", entities.get(0).getString());
+    }
+
+    public void testTransactionWritesEvictOnlyWrittenKeys() {
+        mDao.selectEntities(1L);
+        mDao.selectEntities(2L);
+
+        Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+
+        database.open();
+        try {
+            database.beginTransaction();
+            try {
+                mDao.updateEntity(1L, createEntity(1, "Updated"));
+                mDao.insertOrReplaceEntity(createEntity(1, "Replaced"));
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
+        } finally {
+            database.close();
+        }
+
+        long hitCount = mDao.getEntityCacheStats().getHitCount();
+
+        mDao.selectEntities(2L);
+        assertEquals("Key which wasn't written has to stay cached", hitCount + 1, mDao.getEntityCacheStats().getHitCount());
+        assertEquals("Written key has to be evicted", "Replaced", mDao.selectEntities(1L).get(0).getString());
+    }
+
+    public void testSoftCache() {
+        mDao.setEntityCache(new SoftLruEntityCache<Long, DataTypesEntity>(CACHE_SIZE));
+
+        mDao.selectEntities(1L);
+        mDao.selectEntities(1L);
+
+        CacheStats stats = mDao.getEntityCacheStats();
+        assertEquals("Wrong request count", 2, stats.getHitCount() + stats.getMissCount());
+    }
+}
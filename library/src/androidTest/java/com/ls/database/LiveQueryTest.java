@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.model.LiveQueryListener;
+import com.ls.database.model.QueryDelta;
+import com.ls.database.model.SearchCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class LiveQueryTest extends AbsDataTypesDaoTest {
+
+    private static final long DEBOUNCE_MILLIS = 100;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private LiveQuery<Long, DataTypesEntity> mLiveQuery;
+
+    private final BlockingQueue<QueryDelta<Long, DataTypesEntity>> mDeltas = new LinkedBlockingQueue<>();
+
+    private final LiveQueryListener<Long, DataTypesEntity> mListener = new LiveQueryListener<Long, DataTypesEntity>() {
+
+        @Override
+        public void onChanged(List<DataTypesEntity> entities, QueryDelta<Long, DataTypesEntity> delta) {
+            mDeltas.add(delta);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            fail(error.getMessage());
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDao.insertEntities(Arrays.asList(createEntity(1), createEntity(2)), true);
+
+        mLiveQuery = mDao.createLiveQuery(new SearchCondition(null, null), Tables.DataTypes.COLUMN_ID, DEBOUNCE_MILLIS);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mLiveQuery.stop();
+        mLiveQuery = null;
+
+        super.tearDown();
+    }
+
+    public void testDeltas() throws Exception {
+        mLiveQuery.start(mListener);
+
+        QueryDelta<Long, DataTypesEntity> delta = nextDelta();
+        assertEquals("First result has to be inserted", 2, delta.getInserted().size());
+
+        mDao.insertEntities(Arrays.asList(createEntity(3), createEntity(4)), true);
+        delta = nextDelta();
+        assertEquals("Wrong inserted count", 2, delta.getInserted().size());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertTrue(delta.getChanged().isEmpty());
+
+        DataTypesEntity entity = createEntity(1);
+        entity.setString("Updated");
+        mDao.updateEntity(1L, entity);
+        delta = nextDelta();
+        assertEquals("Wrong changed entities", Arrays.asList(entity), delta.getChanged());
+
+        mDao.deleteEntity(2L);
+        delta = nextDelta();
+        assertEquals("Wrong removed keys", Arrays.asList(2L), delta.getRemoved());
+    }
+
+    public void testBurstIsDebounced() throws Exception {
+        mLiveQuery.start(mListener);
+        nextDelta();
+
+        for (int i = 3; i <= 10; i++) {
+            mDao.insertEntity(createEntity(i));
+        }
+
+        List<DataTypesEntity> inserted = new ArrayList<>();
+        int deltaCount = 0;
+
+        while (inserted.size() < 8) {
+            inserted.addAll(nextDelta().getInserted());
+            deltaCount++;
+        }
+
+        assertTrue("Burst of writes has to be debounced, deltas: " + deltaCount, deltaCount < 8);
+    }
+
+    public void testStoppedQueryIsNotDelivered() throws Exception {
+        mLiveQuery.start(mListener);
+        nextDelta();
+
+        mLiveQuery.stop();
+        mDao.insertEntity(createEntity(3));
+
+        assertNull("Stopped query must not deliver results", mDeltas.poll(DEBOUNCE_MILLIS * 3, TimeUnit.MILLISECONDS));
+    }
+
+    private QueryDelta<Long, DataTypesEntity> nextDelta() throws InterruptedException {
+        QueryDelta<Long, DataTypesEntity> delta = mDeltas.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull("Live query result is not delivered", delta);
+        return delta;
+    }
+}
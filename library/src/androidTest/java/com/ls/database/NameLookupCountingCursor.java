@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+/**
+ * Counts lookups of columns by name, {@link Cursor#getColumnIndex(String)} and {@link Cursor#getColumnNames()}.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class NameLookupCountingCursor extends CursorWrapper {
+
+    private int mNameLookupCount;
+
+    public NameLookupCountingCursor(Cursor cursor) {
+        super(cursor);
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        mNameLookupCount++;
+        return super.getColumnIndex(columnName);
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        mNameLookupCount++;
+        return super.getColumnNames();
+    }
+
+    public int getNameLookupCount() {
+        return mNameLookupCount;
+    }
+
+    public void resetNameLookupCount() {
+        mNameLookupCount = 0;
+    }
+}
@@ -28,21 +28,6 @@ package com.ls.database;
  */
 public class Queries {
 
-    public static final String CREATE_DATA_TYPES_TABLE = "CREATE TABLE IF NOT EXISTS " + Tables.DataTypes.NAME
-            + " ("
-            + Tables.DataTypes.COLUMN_ID + " INTEGER PRIMARY KEY,"
-            + Tables.DataTypes.COLUMN_STRING + " TEXT,"
-            + Tables.DataTypes.COLUMN_BYTE + " INTEGER,"
-            + Tables.DataTypes.COLUMN_SHORT + " INTEGER,"
-            + Tables.DataTypes.COLUMN_INTEGER + " INTEGER,"
-            + Tables.DataTypes.COLUMN_LONG + " INTEGER,"
-            + Tables.DataTypes.COLUMN_FLOAT + " NUMBER,"
-            + Tables.DataTypes.COLUMN_DOUBLE + " NUMBER,"
-            + Tables.DataTypes.COLUMN_BOOLEAN + " INTEGER,"
-            + Tables.DataTypes.COLUMN_BLOB + " BLOB,"
-            + Tables.DataTypes.COLUMN_ENUM + " TEXT"
-            + ");";
-
     public static final String CREATE_SIMPLE_DATA_TABLE = "CREATE TABLE IF NOT EXISTS " + Tables.SimpleTable.NAME
             + " ("
             + Tables.SimpleTable.COLUMN_ID + " INTEGER PRIMARY KEY,"
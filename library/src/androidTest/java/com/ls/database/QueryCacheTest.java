@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.model.CacheStats;
+import com.ls.database.model.CursorParser;
+import com.ls.database.model.SearchCondition;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class QueryCacheTest extends AbsDataTypesDaoTest {
+
+    private static final int QUERY_CACHE_SIZE = 10;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDao.insertEntities(Arrays.asList(createEntity(1), createEntity(2), createEntity(3)), true);
+    }
+
+    @Override
+    protected DatabaseTuning getDatabaseTuning() {
+        DatabaseTuning tuning = new DatabaseTuning();
+        tuning.setQueryCacheSize(QUERY_CACHE_SIZE);
+
+        return tuning;
+    }
+
+    public void testResultIsCachedAndShared() {
+        List<DataTypesEntity> first = mDao.selectAllEntities();
+        List<DataTypesEntity> second = mDao.selectAllEntities();
+
+        assertSame("Cached result has to be shared", first, second);
+        assertEquals("Wrong hit count", 1, getStats().getHitCount());
+
+        try {
+            second.clear();
+            fail("Cached result has to be immutable");
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+    }
+
+    public void testWritesInvalidateTable() {
+        SearchCondition condition = new SearchCondition(Tables.DataTypes.COLUMN_ID + ">?", new String[]{"1"});
+
+        assertEquals(3, mDao.selectAllEntities().size());
+        assertEquals(2, mDao.getRowCount(condition));
+
+        mDao.insertEntity(createEntity(4));
+        assertEquals("Insert has to invalidate table", 4, mDao.selectAllEntities().size());
+        assertEquals("Insert has to invalidate table", 3, mDao.getRowCount(condition));
+
+        mDao.deleteEntity(4L);
+        assertEquals("Delete has to invalidate table", 3, mDao.selectAllEntities().size());
+
+        DataTypesEntity entity = createEntity(1);
+        entity.setString("Updated");
+        mDao.updateEntity(1L, entity);
+        assertEquals("Update has to invalidate table", "Updated", mDao.selectAllEntities().get(0).getString());
+
+        mDao.clear();
+        assertEquals("Clear has to invalidate table", 0, mDao.getRowCount(condition));
+    }
+
+    public void testCustomConverterResultIsNotCached() {
+        SearchCondition condition = new SearchCondition(Tables.DataTypes.COLUMN_ID + ">?", new String[]{"0"});
+        String[] columns = {Tables.DataTypes.COLUMN_STRING};
+
+        List<String> first = mDao.selectEntities(condition, null, columns, new StringConverter("First "));
+        List<String> second = mDao.selectEntities(condition, null, columns, new StringConverter("Second "));
+
+        assertEquals("First Test 1", first.get(0));
+        assertEquals("Converter of the same class must not get cached result", "Second Test 1", second.get(0));
+        assertEquals("Wrong hit count", 0, getStats().getHitCount());
+    }
+
+    public void testKeyBatchBypassesCache() {
+        assertEquals(3, mDao.selectEntitiesByKeys(Arrays.asList(1L, 2L, 3L)).size());
+        assertEquals(3, mDao.selectEntitiesByKeys(Arrays.asList(1L, 2L, 3L)).size());
+
+        CacheStats stats = getStats();
+        assertEquals("Batch of keys must not be cached", 0, stats.getSize());
+        assertEquals(0, stats.getHitCount());
+    }
+
+    public void testMemoryBudget() {
+        for (int i = 4; i <= QUERY_CACHE_SIZE + 1; i++) {
+            mDao.insertEntity(createEntity(i));
+        }
+
+        //result is larger than the whole budget
+        mDao.selectAllEntities();
+        mDao.selectAllEntities();
+        assertEquals("Result over budget must not be cached", 0, getStats().getHitCount());
+
+        for (long key = 1; key <= QUERY_CACHE_SIZE + 1; key++) {
+            mDao.selectEntities(key);
+        }
+
+        CacheStats stats = getStats();
+        assertTrue("Budget is exceeded", stats.getSize() <= QUERY_CACHE_SIZE);
+        assertTrue("Eldest results have to be evicted", stats.getEvictionCount() > 0);
+    }
+
+    private static class StringConverter implements CursorConverter<String> {
+
+        private final String mPrefix;
+
+        StringConverter(String prefix) {
+            mPrefix = prefix;
+        }
+
+        @Override
+        public String toEntity(CursorParser parser) {
+            return mPrefix + parser.readString(Tables.DataTypes.COLUMN_STRING);
+        }
+    }
+
+    private CacheStats getStats() {
+        return mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME).getQueryCacheStats();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.dao.DataTypesDAO;
+import com.ls.database.entity.DataTypesEntity;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+import android.test.InstrumentationTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class ReadConnectionPoolTest extends InstrumentationTestCase {
+
+    private static final int ROW_COUNT = 500;
+
+    private DatabaseRegister mDatabaseRegister;
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        if (mDatabaseRegister != null) {
+            new DataTypesDAO(mDatabaseRegister).clear();
+
+            mDatabaseRegister.shutdownAndClear();
+            mDatabaseRegister = null;
+        }
+    }
+
+    @MinSdkVersion(versionCode = Build.VERSION_CODES.HONEYCOMB)
+    public void testReadsDoNotWaitForWriter() throws Exception {
+        final DataTypesDAO dao = createDao(DatabaseTuning.writeHeavy(), 2);
+
+        final Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        final CountDownLatch writerStarted = new CountDownLatch(1);
+        final CountDownLatch readerFinished = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    database.open();
+                    database.beginTransaction();
+
+                    dao.insertEntity(AbsDataTypesDaoTest.createEntity(ROW_COUNT + 1));
+                    writerStarted.countDown();
+
+                    readerFinished.await(10, TimeUnit.SECONDS);
+
+                    database.setTransactionSuccessful();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    database.endTransaction();
+                    database.close();
+                }
+            }
+        });
+
+        assertTrue("Writer is not started", writerStarted.await(10, TimeUnit.SECONDS));
+
+        long count = dao.getRowCount();
+        readerFinished.countDown();
+
+        writer.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals("Reader has to see only committed rows", ROW_COUNT, count);
+        assertEquals("Writer rows have to be committed", ROW_COUNT + 1, dao.getRowCount());
+    }
+
+    @MinSdkVersion(versionCode = Build.VERSION_CODES.HONEYCOMB)
+    public void testConcurrentReadersRunInParallel() throws Exception {
+        final int threadCount = 3;
+        createDao(DatabaseTuning.writeHeavy(), threadCount);
+
+        final Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        final CountDownLatch allReading = new CountDownLatch(threadCount);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            tasks.add(new Callable<Boolean>() {
+
+                @Override
+                public Boolean call() throws Exception {
+                    Cursor cursor = null;
+                    try {
+                        database.open();
+                        cursor = database.query(Tables.DataTypes.NAME, null, null, null, null, null, null, null);
+                        cursor.moveToFirst();
+
+                        //every reader holds its connection until all readers have theirs
+                        allReading.countDown();
+                        return allReading.await(5, TimeUnit.SECONDS);
+                    } finally {
+                        if (cursor != null) {
+                            cursor.close();
+                        }
+
+                        database.close();
+                    }
+                }
+            });
+        }
+
+        database.open();
+        try {
+            List<Future<Boolean>> results = executor.invokeAll(tasks);
+            for (Future<Boolean> result : results) {
+                assertTrue("Readers have to hold connections at the same time", result.get());
+            }
+
+            ReadConnectionPool pool = database.getReadConnectionPool();
+            assertEquals("Every reader has to get its own connection", threadCount, pool.getSize());
+            assertEquals("Readers must not fall back to writer connection", 0, pool.getExhaustedCount());
+        } finally {
+            database.close();
+            executor.shutdown();
+        }
+    }
+
+    @MinSdkVersion(versionCode = Build.VERSION_CODES.HONEYCOMB)
+    public void testExhaustedPoolFallsBackToWriter() {
+        DataTypesDAO dao = createDao(DatabaseTuning.writeHeavy(), 1);
+
+        Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        Cursor cursor = null;
+        try {
+            database.open();
+
+            //open cursor holds the only read connection
+            cursor = database.query(Tables.DataTypes.NAME, null, null, null, null, null, null, null);
+
+            assertEquals("Read has to fall back to writer connection", ROW_COUNT, dao.getRowCount());
+            assertEquals(1, database.getReadConnectionPool().getExhaustedCount());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+
+            database.close();
+        }
+    }
+
+    @MinSdkVersion(versionCode = Build.VERSION_CODES.HONEYCOMB)
+    public void testTuningIsAppliedToReadConnections() {
+        DatabaseTuning tuning = DatabaseTuning.readHeavy();
+        createDao(tuning, 1);
+
+        Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        try {
+            database.open();
+
+            ReadConnectionPool pool = database.getReadConnectionPool();
+            SQLiteDatabase connection = pool.acquire();
+            Cursor cursor = connection.rawQuery("PRAGMA cache_size", null);
+            try {
+                assertTrue(cursor.moveToFirst());
+                assertEquals((long) tuning.getCacheSize(), cursor.getLong(0));
+            } finally {
+                cursor.close();
+                pool.release(connection);
+            }
+        } finally {
+            database.close();
+        }
+    }
+
+    private DataTypesDAO createDao(DatabaseTuning tuning, int readConnectionPoolSize) {
+        tuning.setReadConnectionPoolSize(readConnectionPoolSize);
+
+        mDatabaseRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+        mDatabaseRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()), tuning);
+
+        DataTypesDAO dao = new DataTypesDAO(mDatabaseRegister);
+        dao.clear();
+
+        List<DataTypesEntity> entities = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            entities.add(AbsDataTypesDaoTest.createEntity(i + 1));
+        }
+        dao.insertEntities(entities, true);
+
+        return dao;
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        MinSdkVersion minSdkVersion = getClass().getMethod(getName(), (Class[]) null).getAnnotation(MinSdkVersion.class);
+
+        if (minSdkVersion == null || Build.VERSION.SDK_INT >= minSdkVersion.versionCode()) {
+            super.runTest();
+        }
+    }
+}
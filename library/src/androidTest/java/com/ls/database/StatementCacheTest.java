@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.dao.DAOTestingHelper;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.Arrays;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class StatementCacheTest extends AbsDataTypesDaoTest {
+
+    private static final String FIRST_SQL = "SELECT 1";
+    private static final String SECOND_SQL = "SELECT 2";
+    private static final String THIRD_SQL = "SELECT 3";
+
+    private SQLiteDatabase mConnection;
+    private StatementCache mCache;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mConnection = SQLiteDatabase.create(null);
+        mCache = new StatementCache(2);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mCache.clear();
+        mCache = null;
+
+        mConnection.close();
+        mConnection = null;
+
+        super.tearDown();
+    }
+
+    public void testLeastRecentlyUsedStatementIsEvicted() {
+        mCache.release(mCache.putAndAcquire(FIRST_SQL, mConnection.compileStatement(FIRST_SQL)));
+        mCache.release(mCache.putAndAcquire(SECOND_SQL, mConnection.compileStatement(SECOND_SQL)));
+
+        //first statement becomes the most recently used one
+        mCache.release(mCache.acquire(FIRST_SQL));
+
+        mCache.release(mCache.putAndAcquire(THIRD_SQL, mConnection.compileStatement(THIRD_SQL)));
+
+        assertEquals(2, mCache.size());
+        assertNull("Least recently used statement has to be evicted", mCache.acquire(SECOND_SQL));
+
+        SQLiteStatement first = mCache.acquire(FIRST_SQL);
+        assertNotNull(first);
+        mCache.release(first);
+    }
+
+    public void testEvictedStatementIsClosedAfterRelease() {
+        SQLiteStatement first = mCache.putAndAcquire(FIRST_SQL, mConnection.compileStatement(FIRST_SQL));
+
+        mCache.release(mCache.putAndAcquire(SECOND_SQL, mConnection.compileStatement(SECOND_SQL)));
+        mCache.release(mCache.putAndAcquire(THIRD_SQL, mConnection.compileStatement(THIRD_SQL)));
+        assertNull("Statement has to be evicted", mCache.acquire(FIRST_SQL));
+
+        assertEquals("Evicted statement in use has to stay open", 1, first.simpleQueryForLong());
+
+        mCache.release(first);
+        assertClosed(first);
+    }
+
+    public void testClearWhileStatementIsAcquired() {
+        SQLiteStatement first = mCache.putAndAcquire(FIRST_SQL, mConnection.compileStatement(FIRST_SQL));
+
+        mCache.clear();
+        assertEquals(0, mCache.size());
+
+        assertEquals("Acquired statement has to stay open", 1, first.simpleQueryForLong());
+
+        mCache.release(first);
+        assertClosed(first);
+        assertNull(mCache.acquire(FIRST_SQL));
+    }
+
+    public void testAcquiredStatementIsNotShared() {
+        SQLiteStatement first = mCache.putAndAcquire(FIRST_SQL, mConnection.compileStatement(FIRST_SQL));
+        assertNull("Acquired statement must not be shared", mCache.acquire(FIRST_SQL));
+
+        SQLiteStatement oneOff = mCache.putAndAcquire(FIRST_SQL, mConnection.compileStatement(FIRST_SQL));
+        assertNotSame(first, oneOff);
+        assertEquals(1, oneOff.simpleQueryForLong());
+
+        mCache.release(oneOff);
+        assertClosed(oneOff);
+
+        mCache.release(first);
+        assertSame("Cached statement has to be reused after release", first, mCache.acquire(FIRST_SQL));
+        mCache.release(first);
+    }
+
+    public void testUpdateDeleteCountWithoutNativeSupport() {
+        mDao.insertEntities(Arrays.asList(createEntity(1), createEntity(2), createEntity(3)), true);
+
+        Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        database.open();
+        try {
+            assertEquals(2, database.runUpdateDeleteCompat("UPDATE " + Tables.DataTypes.NAME + " SET "
+                    + Tables.DataTypes.COLUMN_STRING + "=? WHERE " + Tables.DataTypes.COLUMN_ID + "<?",
+                    new Object[]{"Updated", 3}));
+            assertEquals(1, database.runUpdateDeleteCompat("DELETE FROM " + Tables.DataTypes.NAME + " WHERE "
+                    + Tables.DataTypes.COLUMN_ID + "=?", new Object[]{3}));
+            assertEquals(0, database.runUpdateDeleteCompat("DELETE FROM " + Tables.DataTypes.NAME + " WHERE "
+                    + Tables.DataTypes.COLUMN_ID + "=?", new Object[]{3}));
+        } finally {
+            database.close();
+        }
+    }
+
+    private static void assertClosed(SQLiteStatement statement) {
+        try {
+            statement.simpleQueryForLong();
+            fail("Released statement has to be closed");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.dao.PrimitiveDataTypesDAO;
+import com.ls.database.entity.EnumValue;
+import com.ls.database.entity.PrimitiveDataTypesEntity;
+import com.ls.database.model.CursorParser;
+
+import android.test.InstrumentationTestCase;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class TableInfoTest extends InstrumentationTestCase {
+
+    private DatabaseRegister mDatabaseRegister;
+    private PrimitiveDataTypesDAO mDao;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDatabaseRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+        mDatabaseRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()));
+
+        mDao = new PrimitiveDataTypesDAO(mDatabaseRegister);
+        mDao.clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        mDao.clear();
+        mDao = null;
+
+        mDatabaseRegister.shutdownAndClear();
+        mDatabaseRegister = null;
+    }
+
+    public void testCreateTableQuery() {
+        TableInfo tableInfo = new TableInfo("contacts",
+                new Column<>("id", Long.class, true, false),
+                new Column<>("name", String.class),
+                new Column<>("rating", Double.class),
+                new Column<>("photo", byte[].class));
+
+        assertEquals("CREATE TABLE IF NOT EXISTS contacts (id INTEGER PRIMARY KEY NOT NULL, name TEXT, rating NUMERIC, "
+                + "photo BLOB);", tableInfo.getCreateTableQuery());
+        assertTrue(Arrays.equals(new String[]{"id", "name", "rating", "photo"}, tableInfo.getColumnNames()));
+    }
+
+    public void testCompositePrimaryKey() {
+        TableInfo tableInfo = new TableInfo("members",
+                new Column<>("group_id", Long.class, true, false),
+                new Column<>("user_id", Long.class, true, false),
+                new Column<>("role", EnumValue.class));
+
+        assertEquals("CREATE TABLE IF NOT EXISTS members (group_id INTEGER NOT NULL, user_id INTEGER NOT NULL, "
+                + "role TEXT, PRIMARY KEY (group_id, user_id));", tableInfo.getCreateTableQuery());
+    }
+
+    public void testOrdinals() {
+        Column<Long> id = new Column<>("id", Long.class, true, false);
+        Column<String> name = new Column<>("name", String.class);
+        assertEquals(-1, id.getOrdinal());
+        assertNull(id.getTableInfo());
+
+        TableInfo tableInfo = new TableInfo("simple", id, name);
+        assertSame(tableInfo, id.getTableInfo());
+        assertEquals(0, id.getOrdinal());
+        assertEquals(1, name.getOrdinal());
+    }
+
+    public void testColumnCannotBeAddedTwice() {
+        Column<Long> id = new Column<>("id", Long.class, true, false);
+        new TableInfo("first", id);
+
+        try {
+            new TableInfo("second", id);
+            fail("Column is added to second table");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+
+        try {
+            new TableInfo("third", new Column<>("id", Long.class), new Column<>("id", String.class));
+            fail("Duplicate column names are accepted");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    public void testUnsupportedColumnType() {
+        try {
+            new Column<>("value", Object.class);
+            fail("Unsupported column type is accepted");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    public void testReadByOrdinal() {
+        PrimitiveDataTypesEntity entity = new PrimitiveDataTypesEntity();
+        entity.setId(7);
+        entity.setString("Test");
+        entity.setByte((byte) 3);
+        entity.setShort((short) 4);
+        entity.setInt(5);
+        entity.setLong(6L);
+        entity.setFloat(1.5f);
+        entity.setDouble(2.5d);
+        entity.setBoolean(true);
+        entity.setBytes(new byte[]{1, 2, 3});
+        entity.setEnumValue(EnumValue.TEST_2);
+        mDao.insertEntity(entity);
+
+        List<PrimitiveDataTypesEntity> result = mDao.selectEntities(7L);
+        assertEquals(1, result.size());
+        assertEquals(entity, result.get(0));
+
+        Database database = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        NameLookupCountingCursor cursor = null;
+        try {
+            database.open();
+
+            cursor = new NameLookupCountingCursor(database.query(Tables.DataTypes.NAME,
+                    Tables.DataTypes.INFO.getProjection(), null, null, null, null, null, null));
+            assertTrue(cursor.moveToFirst());
+
+            CursorParser parser = new CursorParser(cursor, Tables.DataTypes.INFO);
+            assertEquals(entity, mDao.toEntity(parser));
+            assertEquals(0, cursor.getNameLookupCount());
+            parser.releaseResources();
+
+            //same cursor without projection resolves columns by name
+            parser = new CursorParser(cursor);
+            assertEquals(entity, mDao.toEntity(parser));
+            assertTrue(cursor.getNameLookupCount() > 0);
+            parser.releaseResources();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+
+            database.close();
+        }
+    }
+}
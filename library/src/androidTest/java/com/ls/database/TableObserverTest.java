@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.model.TableChangeEvent;
+import com.ls.database.model.TableObserver;
+
+import android.database.sqlite.SQLiteConstraintException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class TableObserverTest extends AbsDataTypesDaoTest {
+
+    private Database mDatabase;
+
+    private final List<TableChangeEvent> mEvents = new ArrayList<>();
+    private boolean mNotifiedInTransaction;
+
+    private final TableObserver mObserver = new TableObserver() {
+
+        @Override
+        public void onTablesChanged(TableChangeEvent event) {
+            mEvents.add(event);
+
+            if (mDatabase.inTransaction()) {
+                mNotifiedInTransaction = true;
+            }
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDatabase = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+        mDatabaseRegister.addTableObserver(DAOTestingHelper.DB_NAME, mObserver, Tables.DataTypes.NAME);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mDatabaseRegister.removeTableObserver(DAOTestingHelper.DB_NAME, mObserver);
+        mDatabase = null;
+
+        super.tearDown();
+    }
+
+    public void testOneNotificationPerTransaction() {
+        mDao.insertEntities(Arrays.asList(createEntity(1), createEntity(2), createEntity(3)), true);
+
+        assertEquals("Wrong count of notifications", 1, mEvents.size());
+        assertFalse("Observer has to be notified after commit", mNotifiedInTransaction);
+
+        TableChangeEvent event = mEvents.get(0);
+        assertTrue(event.isTableChanged(Tables.DataTypes.NAME));
+        assertEquals("Wrong keys", new HashSet<Object>(Arrays.asList(1L, 2L, 3L)), event.getKeys(Tables.DataTypes.NAME));
+    }
+
+    public void testRolledBackTransactionIsNotNotified() {
+        mDatabase.open();
+        try {
+            mDatabase.beginTransaction();
+            try {
+                mDao.insertEntity(createEntity(1));
+            } finally {
+                mDatabase.endTransaction();
+            }
+        } finally {
+            mDatabase.close();
+        }
+
+        assertTrue("Rolled back transaction must not be notified", mEvents.isEmpty());
+        assertFalse(mDao.contains(1L));
+    }
+
+    public void testFailedCommitDoesNotLeakTransactionState() {
+        mDatabase.open();
+        try {
+            //deferred foreign key is checked only by commit
+            mDatabase.execSQL("PRAGMA foreign_keys = ON");
+            mDatabase.execSQL("CREATE TABLE IF NOT EXISTS fk_parent (id INTEGER PRIMARY KEY)");
+            mDatabase.execSQL("CREATE TABLE IF NOT EXISTS fk_child (id INTEGER PRIMARY KEY, parent_id INTEGER "
+                    + "REFERENCES fk_parent(id) DEFERRABLE INITIALLY DEFERRED)");
+
+            mDatabase.beginTransaction();
+            mDao.insertEntity(createEntity(1));
+            mDatabase.execSQL("INSERT INTO fk_child (id, parent_id) VALUES (1, 1)");
+            mDatabase.setTransactionSuccessful();
+
+            try {
+                mDatabase.endTransaction();
+                fail("Commit has to fail");
+            } catch (SQLiteConstraintException e) {
+                //expected
+            }
+
+            assertFalse("Failed commit has to end transaction", mDatabase.inTransaction());
+            assertTrue("Failed commit must not be notified", mEvents.isEmpty());
+
+            mDatabase.beginTransaction();
+            try {
+                mDao.insertEntity(createEntity(2));
+                mDatabase.setTransactionSuccessful();
+            } finally {
+                mDatabase.endTransaction();
+            }
+
+            assertEquals("Next transaction has to be notified", 1, mEvents.size());
+        } finally {
+            mDatabase.execSQL("DROP TABLE IF EXISTS fk_child");
+            mDatabase.execSQL("DROP TABLE IF EXISTS fk_parent");
+            mDatabase.execSQL("PRAGMA foreign_keys = OFF");
+            mDatabase.close();
+        }
+    }
+
+    public void testUnknownKeys() {
+        mDao.insertEntity(createEntity(1));
+        mDao.clear();
+
+        assertEquals("Wrong count of notifications", 2, mEvents.size());
+        assertNull("Keys of clear are unknown", mEvents.get(1).getKeys(Tables.DataTypes.NAME));
+    }
+
+    public void testOtherTablesAreNotObserved() {
+        final List<TableChangeEvent> otherTableEvents = new ArrayList<>();
+        TableObserver otherTableObserver = new TableObserver() {
+
+            @Override
+            public void onTablesChanged(TableChangeEvent event) {
+                otherTableEvents.add(event);
+            }
+        };
+
+        mDatabaseRegister.addTableObserver(DAOTestingHelper.DB_NAME, otherTableObserver, Tables.SimpleTable.NAME);
+        try {
+            mDao.insertEntity(createEntity(1));
+        } finally {
+            mDatabaseRegister.removeTableObserver(DAOTestingHelper.DB_NAME, otherTableObserver);
+        }
+
+        assertEquals("Wrong count of notifications", 1, mEvents.size());
+        assertTrue("Observer of another table must not be notified", otherTableEvents.isEmpty());
+    }
+}
@@ -23,6 +23,8 @@
  */
 package com.ls.database;
 
+import com.ls.database.entity.EnumValue;
+
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
@@ -42,6 +44,21 @@ public class Tables {
         public static final String COLUMN_BOOLEAN = "boolean_value";
         public static final String COLUMN_BLOB = "blob_value";
         public static final String COLUMN_ENUM = "enum_value";
+
+        public static final Column<Long> ID = new Column<>(COLUMN_ID, Long.class, true, true);
+        public static final Column<String> STRING = new Column<>(COLUMN_STRING, String.class);
+        public static final Column<Byte> BYTE = new Column<>(COLUMN_BYTE, Byte.class);
+        public static final Column<Short> SHORT = new Column<>(COLUMN_SHORT, Short.class);
+        public static final Column<Integer> INTEGER = new Column<>(COLUMN_INTEGER, Integer.class);
+        public static final Column<Long> LONG = new Column<>(COLUMN_LONG, Long.class);
+        public static final Column<Float> FLOAT = new Column<>(COLUMN_FLOAT, Float.class);
+        public static final Column<Double> DOUBLE = new Column<>(COLUMN_DOUBLE, Double.class);
+        public static final Column<Boolean> BOOLEAN = new Column<>(COLUMN_BOOLEAN, Boolean.class);
+        public static final Column<byte[]> BLOB = new Column<>(COLUMN_BLOB, byte[].class);
+        public static final Column<EnumValue> ENUM = new Column<>(COLUMN_ENUM, EnumValue.class);
+
+        public static final TableInfo INFO = new TableInfo(NAME, ID, STRING, BYTE, SHORT, INTEGER, LONG, FLOAT, DOUBLE,
+                BOOLEAN, BLOB, ENUM);
     }
 
     public static class SimpleTable {
@@ -0,0 +1,196 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.DAOTestingHelper;
+import com.ls.database.dao.DataTypesDAO;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.entity.EnumValue;
+import com.ls.database.util.Logger;
+
+import android.content.ContentValues;
+import android.database.SQLException;
+import android.test.InstrumentationTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares cost of rewriting existing rows through INSERT OR REPLACE, which deletes and inserts every row again,
+ * with native upsert and its update-then-insert fallback, which update rows in place.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class UpsertBenchmarkTest extends InstrumentationTestCase {
+
+    private static final int ROW_COUNT = 2000;
+    private static final int ITERATIONS = 5;
+
+    private static Logger mLogger = new Logger(UpsertBenchmarkTest.class.getSimpleName());
+
+    private DatabaseRegister mDatabaseRegister;
+    private Database mDatabase;
+    private DataTypesDAO mDao;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDatabaseRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+        mDatabaseRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()));
+
+        mDatabase = mDatabaseRegister.getDatabase(DAOTestingHelper.DB_NAME);
+
+        mDao = new DataTypesDAO(mDatabaseRegister);
+        mDao.clear();
+        mDao.insertEntities(generateEntities(0), true);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        mDao.clear();
+
+        mDatabaseRegister.shutdownAndClear();
+        mDatabaseRegister = null;
+    }
+
+    public void testFallbackUpsert() {
+        mDatabase.setNativeUpsertSupported(false);
+        try {
+            List<DataTypesEntity> entities = generateEntities(1);
+            DataTypesEntity newEntity = generateEntity(ROW_COUNT, 1);
+            entities.add(newEntity);
+
+            assertEquals("All rows have to be written", ROW_COUNT + 1, mDao.upsertEntities(entities, true));
+            assertEquals("Entities are not equal", entities, mDao.selectAllEntities());
+        } finally {
+            mDatabase.setNativeUpsertSupported(null);
+        }
+    }
+
+    public void testUpsertErrorsAreThrown() {
+        ContentValues values = new ContentValues();
+        values.put("missing_column", 1);
+
+        String[] keyColumns = {Tables.DataTypes.COLUMN_ID};
+
+        mDatabase.open();
+        try {
+            boolean nativeSupported = mDatabase.isNativeUpsertSupported();
+
+            mDatabase.setNativeUpsertSupported(false);
+            try {
+                mDatabase.upsert(Tables.DataTypes.NAME, values, keyColumns);
+                fail("Fallback upsert has to throw like native one");
+            } catch (SQLException e) {
+                //expected
+            } finally {
+                mDatabase.setNativeUpsertSupported(null);
+            }
+
+            if (nativeSupported) {
+                try {
+                    mDatabase.upsert(Tables.DataTypes.NAME, values, keyColumns);
+                    fail("Native upsert has to throw");
+                } catch (SQLException e) {
+                    //expected
+                }
+            }
+        } finally {
+            mDatabase.close();
+        }
+    }
+
+    public void testUpsertBenchmark() {
+        long replaceTime = Long.MAX_VALUE;
+        long fallbackTime = Long.MAX_VALUE;
+        long nativeTime = Long.MAX_VALUE;
+
+        boolean nativeSupported;
+        mDatabase.open();
+        try {
+            nativeSupported = mDatabase.isNativeUpsertSupported();
+        } finally {
+            mDatabase.close();
+        }
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<DataTypesEntity> entities = generateEntities(i + 1);
+
+            long start = System.nanoTime();
+            mDao.insertOrReplaceEntities(entities, true);
+            replaceTime = Math.min(replaceTime, System.nanoTime() - start);
+
+            mDatabase.setNativeUpsertSupported(false);
+            try {
+                start = System.nanoTime();
+                mDao.upsertEntities(entities, true);
+                fallbackTime = Math.min(fallbackTime, System.nanoTime() - start);
+            } finally {
+                mDatabase.setNativeUpsertSupported(null);
+            }
+
+            if (nativeSupported) {
+                start = System.nanoTime();
+                mDao.upsertEntities(entities, true);
+                nativeTime = Math.min(nativeTime, System.nanoTime() - start);
+            }
+
+            assertEquals("Entities are not equal", entities, mDao.selectAllEntities());
+        }
+
+        mLogger.info("Per row of " + ROW_COUNT + " existing rows: replace " + replaceTime / ROW_COUNT
+                + " ns, update-then-insert " + fallbackTime / ROW_COUNT + " ns, native upsert "
+                + (nativeSupported ? nativeTime / ROW_COUNT + " ns" : "not supported"));
+    }
+
+    private List<DataTypesEntity> generateEntities(int version) {
+        List<DataTypesEntity> result = new ArrayList<>();
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            result.add(generateEntity(i, version));
+        }
+
+        return result;
+    }
+
+    private DataTypesEntity generateEntity(int index, int version) {
+        DataTypesEntity entity = new DataTypesEntity();
+        entity.setId(index + 1);
+        entity.setString("Test " + index + " " + version);
+        entity.setByte((byte) index);
+        entity.setShort((short) index);
+        entity.setInt(index + version);
+        entity.setLong(100000L + index + version);
+        entity.setFloat(index + 0.5f);
+        entity.setDouble(index + 0.25d);
+        entity.setBoolean(version % 2 == 0);
+        entity.setBytes("test bytes".getBytes());
+        entity.setEnumValue(EnumValue.TEST_1);
+
+        return entity;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.dao.AbsDataTypesDaoTest;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.model.WriteCoalescingOptions;
+
+import android.content.ContentValues;
+import android.database.SQLException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class WriteCoalescerTest extends AbsDataTypesDaoTest {
+
+    private static final int ENTITY_COUNT = 50;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        //long delay, writes are flushed explicitly to make grouping deterministic
+        mDao.enableWriteCoalescing(new WriteCoalescingOptions(TimeUnit.MINUTES.toMillis(1), ENTITY_COUNT * 2));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mDao.disableWriteCoalescing();
+
+        super.tearDown();
+    }
+
+    public void testRepeatedWritesAreCollapsed() throws Exception {
+        List<Future<Long>> firstWrites = new ArrayList<>(ENTITY_COUNT);
+        List<Future<Long>> lastWrites = new ArrayList<>(ENTITY_COUNT);
+
+        for (int i = 1; i <= ENTITY_COUNT; i++) {
+            firstWrites.add(mDao.queueInsertOrReplaceEntity(createEntity(i, "First " + i)));
+        }
+
+        for (int i = 1; i <= ENTITY_COUNT; i++) {
+            lastWrites.add(mDao.queueInsertOrReplaceEntity(createEntity(i, "Last " + i)));
+        }
+
+        mDao.flushQueuedWrites();
+
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            long firstRowId = firstWrites.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            long lastRowId = lastWrites.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            assertTrue("Wrong row id", lastRowId > 0);
+            assertEquals("Collapsed writes have to share row id", lastRowId, firstRowId);
+        }
+
+        assertEquals("Wrong count", ENTITY_COUNT, mDao.getRowCount());
+
+        mDao.enableWriteCoalescing(new WriteCoalescingOptions(0, 1));
+        long rowId = mDao.queueInsertOrReplaceEntity(createEntity(1, "Last 1")).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals("Write has to be flushed without waiting", 1, rowId);
+
+        for (int i = 1; i <= ENTITY_COUNT; i++) {
+            List<DataTypesEntity> entities = mDao.selectEntities((long) i);
+            assertEquals("Last write has to win", "Last " + i, entities.get(0).getString());
+        }
+    }
+
+    public void testFlushQueuedWrites() throws Exception {
+        Future<Long> future = mDao.queueInsertOrReplaceEntity(createEntity(1, "Test"));
+        assertFalse("Write has to wait for delay", future.isDone());
+
+        mDao.flushQueuedWrites();
+
+        assertTrue("Write has to be flushed", future.isDone());
+        assertTrue(mDao.contains(1L));
+    }
+
+    public void testFlushEvictsOnlyWrittenKeys() throws Exception {
+        mDao.insertEntities(Arrays.asList(createEntity(1, "Test 1"), createEntity(2, "Test 2")), true);
+        mDao.setEntityCache(new LruEntityCache<Long, DataTypesEntity>(ENTITY_COUNT));
+
+        mDao.selectEntities(1L);
+        mDao.selectEntities(2L);
+
+        mDao.queueInsertOrReplaceEntity(createEntity(1, "Replaced"));
+        mDao.flushQueuedWrites();
+
+        long hitCount = mDao.getEntityCacheStats().getHitCount();
+
+        mDao.selectEntities(2L);
+        assertEquals("Key which wasn't written has to stay cached", hitCount + 1, mDao.getEntityCacheStats().getHitCount());
+        assertEquals("Written key has to be evicted", "Replaced", mDao.selectEntities(1L).get(0).getString());
+    }
+
+    public void testWritesCannotBeQueuedAfterShutdown() {
+        WriteCoalescer<Long> writeCoalescer = new WriteCoalescer<>(mDao, new WriteCoalescingOptions(TimeUnit.MINUTES.toMillis(1), 1));
+        writeCoalescer.shutdown();
+
+        try {
+            writeCoalescer.enqueue(1L, new ContentValues());
+            fail("Write is queued after shutdown");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+    }
+
+    public void testNumericKeysOfDifferentTypesAreCollapsed() throws Exception {
+        WriteCoalescer<Long> writeCoalescer = new WriteCoalescer<>(mDao, new WriteCoalescingOptions(TimeUnit.MINUTES.toMillis(1), ENTITY_COUNT));
+        try {
+            ContentValues intKeyValues = new ContentValues();
+            intKeyValues.put(Tables.DataTypes.COLUMN_ID, 1);
+            intKeyValues.put(Tables.DataTypes.COLUMN_STRING, "First");
+
+            ContentValues longKeyValues = new ContentValues();
+            longKeyValues.put(Tables.DataTypes.COLUMN_ID, 1L);
+            longKeyValues.put(Tables.DataTypes.COLUMN_STRING, "Last");
+
+            Future<Long> first = writeCoalescer.enqueue(1L, intKeyValues);
+            Future<Long> last = writeCoalescer.enqueue(1L, longKeyValues);
+
+            assertEquals("Keys have to be matched regardless of number type", 1, writeCoalescer.getPendingWriteCount());
+
+            writeCoalescer.flush();
+
+            assertEquals(last.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } finally {
+            writeCoalescer.shutdown();
+        }
+    }
+
+    public void testFailedWriteCompletesExceptionally() throws Exception {
+        ContentValues values = new ContentValues();
+        values.put("missing_column", 1);
+
+        WriteCoalescer<Long> writeCoalescer = new WriteCoalescer<>(mDao, new WriteCoalescingOptions(TimeUnit.MINUTES.toMillis(1), ENTITY_COUNT));
+        try {
+            Future<Long> future = writeCoalescer.enqueue(null, values);
+            writeCoalescer.flush();
+
+            future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("Failed write has to complete exceptionally");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        } finally {
+            writeCoalescer.shutdown();
+        }
+    }
+}
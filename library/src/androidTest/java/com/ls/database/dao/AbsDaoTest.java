@@ -26,7 +26,10 @@ package com.ls.database.dao;
 import android.test.InstrumentationTestCase;
 import com.ls.database.BaseSQLiteOpenHelper;
 import com.ls.database.DatabaseRegister;
+import com.ls.database.model.BatchProgressListener;
+import com.ls.database.model.BatchWriteOptions;
 import com.ls.database.model.EntityHolder;
+import com.ls.database.model.EntityIterator;
 import com.ls.database.model.IDAO;
 import com.ls.database.model.SearchCondition;
 
@@ -137,6 +140,30 @@ public abstract class AbsDaoTest<Key, Entity, DAO extends IDAO<Key, Entity>> ext
         assertEquals("Entities are not equal", entities, actualEntities);
     }
 
+    public void testInsertEntitiesInChunks() throws Exception {
+        List<Entity> entities = getEntities();
+
+        final int chunkSize = 3;
+        final List<Integer> progress = new ArrayList<>();
+
+        DAO dao = getDao();
+        //add items
+        dao.insertEntities(entities, new BatchWriteOptions(chunkSize, 0, true, new BatchProgressListener() {
+
+            @Override
+            public void onChunkCommitted(int processedCount, int totalCount) {
+                progress.add(processedCount);
+            }
+        }));
+
+        List<Entity> actualEntities = dao.selectAllEntities();
+        assertEquals("Entities are not equal", entities, actualEntities);
+
+        int expectedChunks = (entities.size() + chunkSize - 1) / chunkSize;
+        assertEquals("Wrong count of chunks", expectedChunks, progress.size());
+        assertEquals("All entities have to be processed", entities.size(), (int) progress.get(progress.size() - 1));
+    }
+
     public void testInsertOrReplaceEntity() throws Exception {
         List<Entity> entities = getEntities();
         Entity entity = entities.get(0);
@@ -170,6 +197,38 @@ public abstract class AbsDaoTest<Key, Entity, DAO extends IDAO<Key, Entity>> ext
         assertEquals("Entities are not equal", entities, actualEntities);
     }
 
+    public void testUpsertEntity() throws Exception {
+        List<Entity> entities = getEntities();
+        Entity entity = entities.get(0);
+
+        DAO dao = getDao();
+        assertEquals("Entity has to be inserted", 1, dao.upsertEntity(entity));
+
+        List<Entity> entitiesToUpdate = getEntities();
+        entitiesToUpdate.subList(1, entitiesToUpdate.size()).clear();
+
+        entities.clear();
+        entities.add(entity);
+
+        List<Entity> updatedEntities = updateEntities(entities, entitiesToUpdate);
+        assertEquals("Existing row has to be updated", 1, dao.upsertEntity(updatedEntities.get(0)));
+
+        List<Entity> actualEntities = dao.selectAllEntities();
+        assertEquals("Entities are not equal", updatedEntities, actualEntities);
+    }
+
+    public void testUpsertEntities() throws Exception {
+        List<Entity> entities = getEntities();
+
+        DAO dao = getDao();
+        dao.insertEntity(entities.get(0));
+
+        assertEquals("All entities have to be written", entities.size(), dao.upsertEntities(entities, true));
+
+        List<Entity> actualEntities = dao.selectAllEntities();
+        assertEquals("Entities are not equal", entities, actualEntities);
+    }
+
     public void testUpdateEntity() {
         List<Entity> entities = getEntities();
         Entity entity = entities.get(0);
@@ -297,10 +356,11 @@ public abstract class AbsDaoTest<Key, Entity, DAO extends IDAO<Key, Entity>> ext
         for (Entity entity : entities) {
             keys.add(extractKey(entity));
         }
-        dao.deleteEntities(keys, true);
+        int deletedRows = dao.deleteEntities(keys, true);
 
         List<Entity> actualEntities = dao.selectAllEntities();
         assertTrue("Table should be empty", actualEntities.isEmpty());
+        assertEquals("Wrong count of deleted rows", keys.size(), deletedRows);
     }
 
     public void testSelectEntitiesBySearchCondition() {
@@ -335,6 +395,25 @@ public abstract class AbsDaoTest<Key, Entity, DAO extends IDAO<Key, Entity>> ext
         assertTrue("Test entities are not present in database", allEntities.containsAll(selectedEntities));
     }
 
+    public void testSelectEntitiesByKeys() throws Exception {
+        List<Entity> entities = getEntities();
+
+        DAO dao = getDao();
+        dao.insertEntities(entities, true);
+
+        List<Entity> allEntities = dao.selectAllEntities();
+
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < allEntities.size(); i += 2) {
+            keys.add(extractKey(allEntities.get(i)));
+        }
+
+        List<Entity> selectedEntities = dao.selectEntitiesByKeys(keys);
+
+        assertEquals("Wrong count", keys.size(), selectedEntities.size());
+        assertTrue("Wrong entities", allEntities.containsAll(selectedEntities));
+    }
+
     public void testSelectAllEntities() throws Exception {
         List<Entity> entities = getEntities();
 
@@ -346,6 +425,26 @@ public abstract class AbsDaoTest<Key, Entity, DAO extends IDAO<Key, Entity>> ext
         assertEquals("Entities are not equal", entities, actualEntities);
     }
 
+    public void testIterateAllEntities() throws Exception {
+        List<Entity> entities = getEntities();
+
+        DAO dao = getDao();
+        //add items
+        dao.insertEntities(entities, true);
+
+        List<Entity> actualEntities = new ArrayList<>();
+        EntityIterator<Entity> iterator = dao.iterateAllEntities();
+        try {
+            while (iterator.hasNext()) {
+                actualEntities.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+
+        assertEquals("Entities are not equal", entities, actualEntities);
+    }
+
     public void testContains() throws Exception {
         List<Entity> entities = getEntities();
 
@@ -382,6 +481,19 @@ public abstract class AbsDaoTest<Key, Entity, DAO extends IDAO<Key, Entity>> ext
         assertTrue("Wrong count", actualRowsCount == actualEntities.size());
     }
 
+    public void testDaoAfterDatabaseReadded() throws Exception {
+        List<Entity> entities = getEntities();
+
+        DAO dao = getDao();
+        dao.insertEntities(entities, true);
+
+        mDatabaseRegister.shutdownAndClear();
+        mDatabaseRegister.addDatabase(getDatabase());
+
+        //same dao instance has to resolve re-added database instead of shut down one
+        assertEquals("Wrong count", entities.size(), dao.getRowCount());
+    }
+
     public void testRowsCountBySearchCondition() {
         List<Entity> entities = getEntities();
 
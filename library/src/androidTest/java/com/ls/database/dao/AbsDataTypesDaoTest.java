@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.dao;
+
+import com.ls.database.DatabaseRegister;
+import com.ls.database.DatabaseTuning;
+import com.ls.database.entity.DataTypesEntity;
+import com.ls.database.entity.EnumValue;
+
+import android.test.InstrumentationTestCase;
+
+/**
+ * Base of tests which work with {@link DataTypesDAO} of {@link DAOTestingHelper} database.
+ * Table is empty before and after every test.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public abstract class AbsDataTypesDaoTest extends InstrumentationTestCase {
+
+    protected DatabaseRegister mDatabaseRegister;
+    protected DataTypesDAO mDao;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mDatabaseRegister = new DatabaseRegister(getInstrumentation().getTargetContext());
+
+        DatabaseTuning tuning = getDatabaseTuning();
+        if (tuning != null) {
+            mDatabaseRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()), tuning);
+        } else {
+            mDatabaseRegister.addDatabase(new DAOTestingHelper(getInstrumentation().getTargetContext()));
+        }
+
+        mDao = new DataTypesDAO(mDatabaseRegister);
+        mDao.clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        mDao.clear();
+        mDao = null;
+
+        mDatabaseRegister.shutdownAndClear();
+        mDatabaseRegister = null;
+    }
+
+    /**
+     * @return tuning of test database, null to keep defaults.
+     */
+    protected DatabaseTuning getDatabaseTuning() {
+        return null;
+    }
+
+    public static DataTypesEntity createEntity(int id) {
+        return createEntity(id, "Test " + id);
+    }
+
+    public static DataTypesEntity createEntity(int id, String value) {
+        DataTypesEntity entity = new DataTypesEntity();
+        entity.setId(id);
+        entity.setString(value);
+        entity.setByte((byte) id);
+        entity.setShort((short) id);
+        entity.setInt(id);
+        entity.setLong(id);
+        entity.setFloat(id + 0.5f);
+        entity.setDouble(id + 0.25d);
+        entity.setBoolean(true);
+        entity.setBytes("test bytes".getBytes());
+        entity.setEnumValue(EnumValue.TEST_2);
+
+        return entity;
+    }
+}
@@ -24,7 +24,6 @@
 package com.ls.database.dao;
 
 import com.ls.database.MigratableSQLiteOpenHelper;
-import com.ls.database.Queries;
 import com.ls.database.TableInfo;
 import com.ls.database.Tables;
 import com.ls.database.model.IMigrationTask;
@@ -53,7 +52,7 @@ public class DAOTestingHelper extends MigratableSQLiteOpenHelper {
     public List<TableInfo> getTablesInfo(Context context) {
         List<TableInfo> list = new ArrayList<>();
 
-        list.add(new TableInfo(Tables.DataTypes.NAME, Queries.CREATE_DATA_TYPES_TABLE));
+        list.add(Tables.DataTypes.INFO);
 
         return list;
     }
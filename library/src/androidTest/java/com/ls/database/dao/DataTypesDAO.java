@@ -107,6 +107,16 @@ public class DataTypesDAO extends BaseDAO<Long, DataTypesEntity> implements Enti
         return Tables.DataTypes.COLUMN_ID;
     }
 
+    @Override
+    protected String getKeyColumnName() {
+        return Tables.DataTypes.COLUMN_ID;
+    }
+
+    @Override
+    protected Long getEntityKey(DataTypesEntity entity) {
+        return entity.getId();
+    }
+
     @Override
     protected EntityConverter<DataTypesEntity> getEntityConverter() {
         return this;
@@ -24,13 +24,18 @@
 package com.ls.database.dao;
 
 import com.ls.database.BaseSQLiteOpenHelper;
+import com.ls.database.Database;
+import com.ls.database.Tables;
 import com.ls.database.entity.DataTypesEntity;
 import com.ls.database.entity.EnumValue;
+import com.ls.database.model.Page;
+import com.ls.database.model.PageToken;
 import com.ls.database.model.SearchCondition;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
@@ -47,6 +52,61 @@ public class DataTypesTest extends AbsDaoTest<Long, DataTypesEntity, DataTypesDA
         return new DataTypesDAO(getDatabaseRegister());
     }
 
+    public void testSelectEntityMapByManyKeys() {
+        int count = Database.MAX_BIND_ARGUMENTS * 2 + 1;
+
+        List<DataTypesEntity> entities = new ArrayList<>(count);
+        List<Long> keys = new ArrayList<>(count + 1);
+
+        for (int i = 1; i <= count; i++) {
+            DataTypesEntity entity = new DataTypesEntity();
+            entity.setId(i);
+            entity.setString("Test " + i);
+            entities.add(entity);
+            keys.add((long) i);
+        }
+
+        //missing key is skipped
+        keys.add((long) count + 1);
+
+        DataTypesDAO dao = getDao();
+        dao.insertEntities(entities, true);
+
+        Map<Long, DataTypesEntity> result = dao.selectEntityMap(keys);
+
+        assertEquals("Wrong count", count, result.size());
+        assertEquals("Wrong entity", "Test " + count, result.get((long) count).getString());
+    }
+
+    public void testSelectPagesByRealColumn() {
+        List<DataTypesEntity> entities = new ArrayList<>();
+
+        //values differ beyond 15 significant digits of REAL converted to text
+        double value = 1d;
+        for (int i = 1; i <= 7; i++) {
+            DataTypesEntity entity = new DataTypesEntity();
+            entity.setId(i);
+            entity.setDouble(value);
+            entities.add(entity);
+
+            value = Math.nextUp(value);
+        }
+
+        DataTypesDAO dao = getDao();
+        dao.insertEntities(entities, true);
+
+        List<DataTypesEntity> actualEntities = new ArrayList<>();
+
+        PageToken token = null;
+        do {
+            Page<DataTypesEntity> page = dao.selectPage(null, Tables.DataTypes.COLUMN_DOUBLE, 2, token);
+            actualEntities.addAll(page.getEntities());
+            token = page.getNextPageToken();
+        } while (token != null);
+
+        assertEquals("Rows must not be skipped or repeated", entities, actualEntities);
+    }
+
     @Override
     protected List<DataTypesEntity> generateEntities() {
         List<DataTypesEntity> result = new ArrayList<>();
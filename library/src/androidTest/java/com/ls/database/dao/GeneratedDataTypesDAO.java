@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.dao;
+
+import com.ls.database.BaseDAO;
+import com.ls.database.DatabaseRegister;
+import com.ls.database.EntityConverter;
+import com.ls.database.Tables;
+import com.ls.database.entity.GeneratedDataTypesEntity;
+import com.ls.database.entity.GeneratedDataTypesEntityConverter;
+import com.ls.database.model.SearchCondition;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class GeneratedDataTypesDAO extends BaseDAO<Long, GeneratedDataTypesEntity> {
+
+    private final GeneratedDataTypesEntityConverter mConverter = new GeneratedDataTypesEntityConverter();
+
+    public GeneratedDataTypesDAO(DatabaseRegister databaseRegister) {
+        super(databaseRegister);
+    }
+
+    @Override
+    protected String getDatabaseName() {
+        return DAOTestingHelper.DB_NAME;
+    }
+
+    @Override
+    protected String getTableName() {
+        return Tables.DataTypes.NAME;
+    }
+
+    @Override
+    protected SearchCondition getSearchCondition(Long key) {
+        return new SearchCondition(
+                Tables.DataTypes.COLUMN_ID + "=?",
+                new String[]{String.valueOf(key)}
+        );
+    }
+
+    @Override
+    protected String getOrderBy() {
+        return Tables.DataTypes.COLUMN_ID;
+    }
+
+    @Override
+    protected String getKeyColumnName() {
+        return Tables.DataTypes.COLUMN_ID;
+    }
+
+    @Override
+    protected Long getEntityKey(GeneratedDataTypesEntity entity) {
+        return entity.getId();
+    }
+
+    @Override
+    protected EntityConverter<GeneratedDataTypesEntity> getEntityConverter() {
+        return mConverter;
+    }
+}
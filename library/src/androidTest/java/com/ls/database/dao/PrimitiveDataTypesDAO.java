@@ -26,14 +26,13 @@ package com.ls.database.dao;
 import com.ls.database.BaseDAO;
 import com.ls.database.DatabaseRegister;
 import com.ls.database.EntityConverter;
+import com.ls.database.TableInfo;
 import com.ls.database.Tables;
-import com.ls.database.entity.EnumValue;
 import com.ls.database.entity.PrimitiveDataTypesEntity;
 import com.ls.database.model.SearchCondition;
 import com.ls.database.model.CursorParser;
 
 import android.content.ContentValues;
-import android.text.TextUtils;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
@@ -85,19 +84,17 @@ public class PrimitiveDataTypesDAO extends BaseDAO<Long, PrimitiveDataTypesEntit
     public PrimitiveDataTypesEntity toEntity(CursorParser parser) {
         PrimitiveDataTypesEntity entity = new PrimitiveDataTypesEntity();
 
-        entity.setId(parser.readLong(Tables.DataTypes.COLUMN_ID));
-        entity.setString(parser.readString(Tables.DataTypes.COLUMN_STRING));
-        entity.setByte(parser.readByte(Tables.DataTypes.COLUMN_BYTE));
-        entity.setShort(parser.readShort(Tables.DataTypes.COLUMN_SHORT));
-        entity.setInt(parser.readInteger(Tables.DataTypes.COLUMN_INTEGER));
-        entity.setLong(parser.readLong(Tables.DataTypes.COLUMN_LONG));
-        entity.setFloat(parser.readFloat(Tables.DataTypes.COLUMN_FLOAT));
-        entity.setDouble(parser.readDouble(Tables.DataTypes.COLUMN_DOUBLE));
-        entity.setBoolean(parser.readInteger(Tables.DataTypes.COLUMN_BOOLEAN) == 1);
-        entity.setBytes(parser.readBlob(Tables.DataTypes.COLUMN_BLOB));
-
-        String enumName = parser.readString(Tables.DataTypes.COLUMN_ENUM);
-        entity.setEnumValue(!TextUtils.isEmpty(enumName) ? EnumValue.valueOf(enumName) : null);
+        entity.setId(parser.readLongPrimitive(Tables.DataTypes.ID, 0L));
+        entity.setString(parser.read(Tables.DataTypes.STRING));
+        entity.setByte(parser.readBytePrimitive(Tables.DataTypes.BYTE, (byte) 0));
+        entity.setShort(parser.readShortPrimitive(Tables.DataTypes.SHORT, (short) 0));
+        entity.setInt(parser.readIntPrimitive(Tables.DataTypes.INTEGER, 0));
+        entity.setLong(parser.readLongPrimitive(Tables.DataTypes.LONG, 0L));
+        entity.setFloat(parser.readFloatPrimitive(Tables.DataTypes.FLOAT, 0f));
+        entity.setDouble(parser.readDoublePrimitive(Tables.DataTypes.DOUBLE, 0d));
+        entity.setBoolean(parser.readBooleanPrimitive(Tables.DataTypes.BOOLEAN, false));
+        entity.setBytes(parser.read(Tables.DataTypes.BLOB));
+        entity.setEnumValue(parser.read(Tables.DataTypes.ENUM));
 
         return entity;
     }
@@ -107,6 +104,11 @@ public class PrimitiveDataTypesDAO extends BaseDAO<Long, PrimitiveDataTypesEntit
         return Tables.DataTypes.COLUMN_ID;
     }
 
+    @Override
+    protected TableInfo getTableInfo() {
+        return Tables.DataTypes.INFO;
+    }
+
     @Override
     protected EntityConverter<PrimitiveDataTypesEntity> getEntityConverter() {
         return this;
@@ -0,0 +1,459 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.model.DatabaseCallback;
+import com.ls.database.model.EntityHolder;
+import com.ls.database.model.IDAO;
+import com.ls.database.model.Page;
+import com.ls.database.model.PageToken;
+import com.ls.database.model.SearchCondition;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs operations of wrapped {@link IDAO} in background. Reads are executed on a bounded pool,
+ * writes are queued to a single writer thread, so they are applied in submission order and never
+ * compete with each other for the database.
+ * <p/>
+ * <b>Reads are not ordered with writes.</b> A read submitted after a write can run before the write is applied,
+ * so it may not see its result. Wait for the {@link Future} or {@link DatabaseCallback} of the write, or pass the read
+ * to {@link #submitWrite(Callable, DatabaseCallback)} to queue it after all previously submitted writes.
+ * <p/>
+ * Every method returns {@link Future} which can be used to wait for result or cancel the operation.
+ * Optional {@link DatabaseCallback} receives result on the main thread unless the operation was cancelled.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class AsyncDAO<Key, Entity> {
+
+    public static final int DEFAULT_READ_THREAD_COUNT = 2;
+
+    private static final long READ_THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    private final IDAO<Key, Entity> mDao;
+
+    private final ExecutorService mReadExecutor;
+    private final ExecutorService mWriteExecutor;
+    private final boolean mOwnsExecutors;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    public AsyncDAO(IDAO<Key, Entity> dao) {
+        this(dao, DEFAULT_READ_THREAD_COUNT);
+    }
+
+    /**
+     * @param readThreadCount max count of threads running reads in parallel.
+     */
+    public AsyncDAO(IDAO<Key, Entity> dao, int readThreadCount) {
+        this(dao, createReadExecutor(readThreadCount), Executors.newSingleThreadExecutor(new NamedThreadFactory("AsyncDAO-write")), true);
+    }
+
+    /**
+     * Allows to share executors between several DAOs of the same database.
+     *
+     * @param readExecutor executor for reads.
+     * @param writeExecutor executor for writes, has to run tasks serially to keep writes ordered.
+     * Executors are not shut down by {@link #shutdown()}.
+     */
+    public AsyncDAO(IDAO<Key, Entity> dao, ExecutorService readExecutor, ExecutorService writeExecutor) {
+        this(dao, readExecutor, writeExecutor, false);
+    }
+
+    private AsyncDAO(IDAO<Key, Entity> dao, ExecutorService readExecutor, ExecutorService writeExecutor, boolean ownsExecutors) {
+        if (dao == null) {
+            throw new IllegalArgumentException("DAO can't be null");
+        }
+
+        if (readExecutor == null || writeExecutor == null) {
+            throw new IllegalArgumentException("Executors can't be null");
+        }
+
+        mDao = dao;
+        mReadExecutor = readExecutor;
+        mWriteExecutor = writeExecutor;
+        mOwnsExecutors = ownsExecutors;
+    }
+
+    public IDAO<Key, Entity> getDao() {
+        return mDao;
+    }
+
+    public Future<Long> insertEntity(final Entity entity, DatabaseCallback<Long> callback) {
+        return submitWrite(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return mDao.insertEntity(entity);
+            }
+        }, callback);
+    }
+
+    public Future<Void> insertEntities(final List<Entity> entities, final boolean useTransaction, DatabaseCallback<Void> callback) {
+        return submitWrite(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                mDao.insertEntities(entities, useTransaction);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Long> insertOrReplaceEntity(final Entity entity, DatabaseCallback<Long> callback) {
+        return submitWrite(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return mDao.insertOrReplaceEntity(entity);
+            }
+        }, callback);
+    }
+
+    public Future<Void> insertOrReplaceEntities(final List<Entity> entities, final boolean useTransaction,
+                                                DatabaseCallback<Void> callback) {
+        return submitWrite(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                mDao.insertOrReplaceEntities(entities, useTransaction);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Integer> upsertEntity(final Entity entity, DatabaseCallback<Integer> callback) {
+        return submitWrite(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return mDao.upsertEntity(entity);
+            }
+        }, callback);
+    }
+
+    public Future<Integer> upsertEntities(final List<Entity> entities, final boolean useTransaction,
+                                          DatabaseCallback<Integer> callback) {
+        return submitWrite(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return mDao.upsertEntities(entities, useTransaction);
+            }
+        }, callback);
+    }
+
+    public Future<Integer> updateEntity(final Key key, final Entity entity, DatabaseCallback<Integer> callback) {
+        return submitWrite(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return mDao.updateEntity(key, entity);
+            }
+        }, callback);
+    }
+
+    public Future<Integer> updateEntities(final List<EntityHolder<Key, Entity>> entities, final boolean useTransaction,
+                                          DatabaseCallback<Integer> callback) {
+        return submitWrite(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return mDao.updateEntities(entities, useTransaction);
+            }
+        }, callback);
+    }
+
+    public Future<Integer> updateOrReplaceEntity(final Key key, final Entity entity, DatabaseCallback<Integer> callback) {
+        return submitWrite(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return mDao.updateOrReplaceEntity(key, entity);
+            }
+        }, callback);
+    }
+
+    public Future<Integer> updateOrReplaceEntities(final List<EntityHolder<Key, Entity>> entities, final boolean useTransaction,
+                                                   DatabaseCallback<Integer> callback) {
+        return submitWrite(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return mDao.updateOrReplaceEntities(entities, useTransaction);
+            }
+        }, callback);
+    }
+
+    public Future<Integer> deleteEntity(final Key key, DatabaseCallback<Integer> callback) {
+        return submitWrite(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return mDao.deleteEntity(key);
+            }
+        }, callback);
+    }
+
+    public Future<Integer> deleteEntities(final List<Key> keys, final boolean useTransaction, DatabaseCallback<Integer> callback) {
+        return submitWrite(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return mDao.deleteEntities(keys, useTransaction);
+            }
+        }, callback);
+    }
+
+    public Future<Void> clear(DatabaseCallback<Void> callback) {
+        return submitWrite(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                mDao.clear();
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<List<Entity>> selectEntities(final SearchCondition condition, final String orderBy,
+                                               DatabaseCallback<List<Entity>> callback) {
+        return submitRead(new Callable<List<Entity>>() {
+
+            @Override
+            public List<Entity> call() throws Exception {
+                return mDao.selectEntities(condition, orderBy);
+            }
+        }, callback);
+    }
+
+    public Future<List<Entity>> selectEntities(final Key key, DatabaseCallback<List<Entity>> callback) {
+        return submitRead(new Callable<List<Entity>>() {
+
+            @Override
+            public List<Entity> call() throws Exception {
+                return mDao.selectEntities(key);
+            }
+        }, callback);
+    }
+
+    public Future<List<Entity>> selectEntitiesByKeys(final Collection<Key> keys, DatabaseCallback<List<Entity>> callback) {
+        return submitRead(new Callable<List<Entity>>() {
+
+            @Override
+            public List<Entity> call() throws Exception {
+                return mDao.selectEntitiesByKeys(keys);
+            }
+        }, callback);
+    }
+
+    public Future<Map<Key, Entity>> selectEntityMap(final Collection<Key> keys, DatabaseCallback<Map<Key, Entity>> callback) {
+        return submitRead(new Callable<Map<Key, Entity>>() {
+
+            @Override
+            public Map<Key, Entity> call() throws Exception {
+                return mDao.selectEntityMap(keys);
+            }
+        }, callback);
+    }
+
+    public Future<List<Entity>> selectAllEntities(DatabaseCallback<List<Entity>> callback) {
+        return submitRead(new Callable<List<Entity>>() {
+
+            @Override
+            public List<Entity> call() throws Exception {
+                return mDao.selectAllEntities();
+            }
+        }, callback);
+    }
+
+    public Future<Page<Entity>> selectPage(final SearchCondition condition, final String orderColumn, final int pageSize,
+                                           final PageToken token, DatabaseCallback<Page<Entity>> callback) {
+        return submitRead(new Callable<Page<Entity>>() {
+
+            @Override
+            public Page<Entity> call() throws Exception {
+                return mDao.selectPage(condition, orderColumn, pageSize, token);
+            }
+        }, callback);
+    }
+
+    public Future<Page<Entity>> selectPage(final int pageSize, final PageToken token, DatabaseCallback<Page<Entity>> callback) {
+        return submitRead(new Callable<Page<Entity>>() {
+
+            @Override
+            public Page<Entity> call() throws Exception {
+                return mDao.selectPage(pageSize, token);
+            }
+        }, callback);
+    }
+
+    public Future<Boolean> contains(final Key key, DatabaseCallback<Boolean> callback) {
+        return submitRead(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                return mDao.contains(key);
+            }
+        }, callback);
+    }
+
+    public Future<Long> getRowCount(DatabaseCallback<Long> callback) {
+        return submitRead(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return mDao.getRowCount();
+            }
+        }, callback);
+    }
+
+    public Future<Long> getRowCount(final SearchCondition searchCondition, DatabaseCallback<Long> callback) {
+        return submitRead(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return mDao.getRowCount(searchCondition);
+            }
+        }, callback);
+    }
+
+    /**
+     * Runs custom read operation, e.g. several selects of DAO, on read pool.
+     * It isn't ordered with writes, see {@link AsyncDAO}.
+     */
+    public <T> Future<T> submitRead(Callable<T> operation, DatabaseCallback<T> callback) {
+        return submit(mReadExecutor, operation, callback);
+    }
+
+    /**
+     * Queues custom write operation after all previously submitted writes.
+     * Can be used for a read which has to see results of previously submitted writes.
+     */
+    public <T> Future<T> submitWrite(Callable<T> operation, DatabaseCallback<T> callback) {
+        return submit(mWriteExecutor, operation, callback);
+    }
+
+    /**
+     * Stops accepting new operations. Already queued writes are completed, only executors created by
+     * this instance are shut down.
+     */
+    public void shutdown() {
+        if (mOwnsExecutors) {
+            mReadExecutor.shutdown();
+            mWriteExecutor.shutdown();
+        }
+    }
+
+    private <T> Future<T> submit(ExecutorService executor, Callable<T> operation, DatabaseCallback<T> callback) {
+        CallbackFutureTask<T> task = new CallbackFutureTask<>(operation, callback);
+        executor.execute(task);
+        return task;
+    }
+
+    private static ExecutorService createReadExecutor(int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Read thread count has to be positive");
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, READ_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("AsyncDAO-read"));
+        //idle read threads are stopped since API 9, before it they stay alive with the executor
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD) {
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private class CallbackFutureTask<T> extends FutureTask<T> {
+
+        private final DatabaseCallback<T> mCallback;
+
+        CallbackFutureTask(Callable<T> operation, DatabaseCallback<T> callback) {
+            super(operation);
+            mCallback = callback;
+        }
+
+        @Override
+        protected void done() {
+            if (mCallback == null || isCancelled()) {
+                return;
+            }
+
+            mMainHandler.post(new Runnable() {
+
+                @Override
+                public void run() {
+                    //operation could be cancelled before delivery
+                    if (isCancelled()) {
+                        return;
+                    }
+
+                    try {
+                        mCallback.onSuccess(get());
+                    } catch (ExecutionException e) {
+                        mCallback.onError(e.getCause());
+                    } catch (InterruptedException e) {
+                        mCallback.onError(e);
+                    }
+                }
+            });
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String mName;
+        private final AtomicInteger mCounter = new AtomicInteger(0);
+
+        NamedThreadFactory(String name) {
+            mName = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, mName + "-" + mCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
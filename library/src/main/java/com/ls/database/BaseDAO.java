@@ -23,39 +23,95 @@
  */
 package com.ls.database;
 
+import com.ls.database.model.BatchProgressListener;
+import com.ls.database.model.BatchWriteOptions;
+import com.ls.database.model.CacheStats;
 import com.ls.database.model.ConflictType;
 import com.ls.database.model.CursorParser;
+import com.ls.database.model.EntityCache;
 import com.ls.database.model.EntityHolder;
+import com.ls.database.model.EntityIterator;
 import com.ls.database.model.IDAO;
+import com.ls.database.model.Page;
+import com.ls.database.model.PageToken;
 import com.ls.database.model.SearchCondition;
+import com.ls.database.model.TableObserver;
+import com.ls.database.model.WriteCoalescingOptions;
 
+import android.annotation.TargetApi;
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.os.Build;
+import android.os.SystemClock;
 import android.text.TextUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
 public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
 
-    private DatabaseRegister mDatabaseRegister;
+    /**
+     * Max count of composite keys joined by OR into one query, see {@link #selectEntitiesByKeys(Collection)}.
+     */
+    private static final int COMPOSITE_KEYS_PER_QUERY = 100;
+
+    private final DatabaseRegister mDatabaseRegister;
+
+    private volatile Database mDatabase;
+
+    private volatile WriteCoalescer<Key> mWriteCoalescer;
+
+    private volatile EntityCache<Key, Entity> mEntityCache;
+
+    /**
+     * Incremented on every invalidation, entities loaded before invalidation are not left in cache.
+     */
+    private final AtomicLong mEntityCacheVersion = new AtomicLong(0);
+
+    private volatile DirtyTracker<Key> mDirtyTracker;
+
+    /**
+     * Keys written in transaction of current thread, see {@link #addTransactionWrite(Database, Object)}.
+     */
+    private final ThreadLocal<TransactionWrites<Key>> mTransactionWrites = new ThreadLocal<>();
 
     protected BaseDAO(DatabaseRegister databaseRegister) {
         mDatabaseRegister = databaseRegister;
     }
 
+    /**
+     * Database is resolved once and cached until it's shut down via {@link DatabaseRegister#shutdownAndClear()}.
+     */
     protected Database getDatabase() {
+        Database database = mDatabase;
+
+        if (database != null && !database.isShutdown()) {
+            return database;
+        }
+
         String databaseName = getDatabaseName();
-        Database database = mDatabaseRegister.getDatabase(databaseName);
+        database = mDatabaseRegister.getDatabase(databaseName);
 
         if (database == null) {
             throw new IllegalArgumentException("Database with name " + databaseName
                     + " is not initialized, add it via " + DatabaseRegister.class.getName());
         }
 
+        mDatabase = database;
         return database;
     }
 
@@ -69,6 +125,11 @@ public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
         insert(entities, ConflictType.CONFLICT_NONE, useTransaction);
     }
 
+    @Override
+    public void insertEntities(List<Entity> entities, BatchWriteOptions options) {
+        insert(entities, ConflictType.CONFLICT_NONE, options);
+    }
+
     @Override
     public long insertOrReplaceEntity(Entity entity) {
         return insert(entity, ConflictType.CONFLICT_REPLACE);
@@ -79,6 +140,165 @@ public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
         insert(entities, ConflictType.CONFLICT_REPLACE, useTransaction);
     }
 
+    @Override
+    public void insertOrReplaceEntities(List<Entity> entities, BatchWriteOptions options) {
+        insert(entities, ConflictType.CONFLICT_REPLACE, options);
+    }
+
+    @Override
+    public int upsertEntity(Entity entity) {
+        return upsert(entity);
+    }
+
+    @Override
+    public int upsertEntities(List<Entity> entities, boolean useTransaction) {
+        return upsert(entities, useTransaction);
+    }
+
+    @Override
+    public int upsertEntities(List<Entity> entities, BatchWriteOptions options) {
+        return writeInChunks(entities, options, new RowWriter<Entity>() {
+
+            @Override
+            public int write(Entity entity) {
+                return upsert(entity);
+            }
+        });
+    }
+
+    /**
+     * Enables write-behind queue used by {@link #queueInsertOrReplaceEntity(Object)}.
+     * Queued writes are grouped into one transaction, writes with the same value of
+     * {@link #getKeyColumnName()} are collapsed into the last one.
+     */
+    public synchronized void enableWriteCoalescing(WriteCoalescingOptions options) {
+        if (mWriteCoalescer != null) {
+            mWriteCoalescer.shutdown();
+        }
+
+        mWriteCoalescer = new WriteCoalescer<>(this, options);
+    }
+
+    /**
+     * Flushes queued writes and disables write-behind queue.
+     */
+    public synchronized void disableWriteCoalescing() {
+        WriteCoalescer<Key> writeCoalescer = mWriteCoalescer;
+        mWriteCoalescer = null;
+
+        if (writeCoalescer != null) {
+            writeCoalescer.shutdown();
+        }
+    }
+
+    /**
+     * Queues insert-or-replace of entity, see {@link #enableWriteCoalescing(WriteCoalescingOptions)}.
+     *
+     * @return future which is completed with row id after the write is committed.
+     */
+    public Future<Long> queueInsertOrReplaceEntity(Entity entity) {
+        WriteCoalescer<Key> writeCoalescer = mWriteCoalescer;
+
+        if (writeCoalescer == null) {
+            throw new IllegalStateException("Write coalescing is not enabled");
+        }
+
+        return writeCoalescer.enqueue(getEntityKey(entity), getEntityConverter().toContentValues(entity));
+    }
+
+    /**
+     * Writes all queued entities and waits until they are committed.
+     */
+    public void flushQueuedWrites() {
+        WriteCoalescer<Key> writeCoalescer = mWriteCoalescer;
+
+        if (writeCoalescer != null) {
+            writeCoalescer.flush();
+        }
+    }
+
+    /**
+     * Enables tracking of changed columns: values of entities loaded by {@link #selectEntities(SearchCondition, String)}
+     * and written by {@link #updateEntity(Object, Object)} are remembered by key, so next update of the key writes
+     * only columns which differ from remembered ones. Update which changes nothing doesn't run UPDATE statement,
+     * it only counts rows of the key, so deleted row still gets 0. If another write changes the tracker while
+     * changed columns are written, all columns are written again, so columns skipped by the diff are not lost.
+     * Requires {@link #getEntityKey(Object)}. Like entity cache, tracking assumes the table is written only by this DAO,
+     * other writes require {@link #clearEntityCache()}.
+     *
+     * @param maxSnapshots max count of remembered keys, least recently used ones are dropped.
+     */
+    public void enableDirtyTracking(int maxSnapshots) {
+        mDirtyTracker = new DirtyTracker<>(maxSnapshots);
+    }
+
+    public void disableDirtyTracking() {
+        mDirtyTracker = null;
+    }
+
+    /**
+     * Enables cache of {@link #selectEntities(Object)} results, null disables it.
+     * Cache is invalidated by all writes of this DAO. Writes made outside of the DAO, e.g. by raw SQL,
+     * triggers or another DAO of the same table, require {@link #clearEntityCache()}.
+     * <p/>
+     * Cached entities are shared between callers and must not be modified.
+     */
+    public void setEntityCache(EntityCache<Key, Entity> entityCache) {
+        mEntityCacheVersion.incrementAndGet();
+        mEntityCache = entityCache;
+    }
+
+    public EntityCache<Key, Entity> getEntityCache() {
+        return mEntityCache;
+    }
+
+    /**
+     * @return statistics of entity cache or null if cache is disabled.
+     */
+    public CacheStats getEntityCacheStats() {
+        EntityCache<Key, Entity> entityCache = mEntityCache;
+        return entityCache != null ? entityCache.getStats() : null;
+    }
+
+    /**
+     * Clears entity cache and snapshots of dirty tracking.
+     */
+    public void clearEntityCache() {
+        evictCachedEntities(null);
+
+        DirtyTracker<Key> dirtyTracker = mDirtyTracker;
+        if (dirtyTracker != null) {
+            dirtyTracker.remove(null);
+        }
+    }
+
+    /**
+     * Subscribes observer to changes of table of this DAO, see {@link Database#addTableObserver(TableObserver, String...)}.
+     * Keys reported by the DAO are of {@link Key} type.
+     */
+    public void addTableObserver(TableObserver observer) {
+        getDatabase().addTableObserver(observer, getTableName());
+    }
+
+    public void removeTableObserver(TableObserver observer) {
+        getDatabase().removeTableObserver(observer);
+    }
+
+    /**
+     * Creates query which is re-executed when table of this DAO changes, see {@link LiveQuery}.
+     * DAO has to override {@link #getEntityKey(Object)}.
+     */
+    public LiveQuery<Key, Entity> createLiveQuery(SearchCondition condition, String orderBy) {
+        return createLiveQuery(condition, orderBy, LiveQuery.DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * @param debounceMillis time to wait for further changes before re-executing query.
+     */
+    public LiveQuery<Key, Entity> createLiveQuery(SearchCondition condition, String orderBy, long debounceMillis) {
+        return new LiveQuery<>(this, condition, orderBy, debounceMillis);
+    }
+
     @Override
     public int updateEntity(Key key, Entity entity) {
         return update(key, entity, ConflictType.CONFLICT_NONE);
@@ -89,6 +309,11 @@ public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
         return update(entities, ConflictType.CONFLICT_NONE, useTransaction);
     }
 
+    @Override
+    public int updateEntities(List<EntityHolder<Key, Entity>> entities, BatchWriteOptions options) {
+        return update(entities, ConflictType.CONFLICT_NONE, options);
+    }
+
     @Override
     public int updateOrReplaceEntity(Key key, Entity entity) {
         return update(key, entity, ConflictType.CONFLICT_REPLACE);
@@ -99,20 +324,19 @@ public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
         return update(entities, ConflictType.CONFLICT_REPLACE, useTransaction);
     }
 
+    @Override
+    public int updateOrReplaceEntities(List<EntityHolder<Key, Entity>> entities, BatchWriteOptions options) {
+        return update(entities, ConflictType.CONFLICT_REPLACE, options);
+    }
+
     @Override
     public int deleteEntity(Key key) {
         int rows = 0;
 
-        SearchCondition searchCondition = getSearchCondition(key);
-
         Database database = getDatabase();
         try {
             database.open();
-            rows = database.delete(
-                    getTableName(),
-                    searchCondition.getWhereClause(),
-                    searchCondition.getWhereArgs()
-            );
+            rows = delete(database, key);
         } finally {
             database.close();
         }
@@ -136,8 +360,13 @@ public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
                 database.beginTransaction();
             }
 
-            for (Key key : keys) {
-                rows += deleteEntity(key);
+            String keyColumnName = getKeyColumnName();
+            if (!TextUtils.isEmpty(keyColumnName)) {
+                rows = deleteByKeyColumn(database, keyColumnName, keys);
+            } else {
+                for (Key key : keys) {
+                    rows += delete(database, key);
+                }
             }
 
             if (useTransaction) {
@@ -154,7 +383,6 @@ public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
         return rows;
     }
 
-    @SuppressWarnings("UnnecessaryLocalVariable")
     @Override
     public List<Entity> selectEntities(SearchCondition condition, String orderBy) {
         if (condition == null) {
@@ -162,245 +390,1201 @@ public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
         }
 
         Database database = getDatabase();
-        Cursor cursor = null;
         try {
             database.open();
-
-            cursor = database.query(
-                    getTableName(),
-                    null,
-                    condition.getWhereClause(),
-                    condition.getWhereArgs(),
-                    null,
-                    null,
-                    orderBy,
-                    null
-            );
-
-            List<Entity> result = parseCursor(cursor);
-            return result;
-
+            return selectEntities(database, condition, orderBy, true);
         } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
             database.close();
         }
     }
 
-    @SuppressWarnings("UnnecessaryLocalVariable")
     @Override
-    public List<Entity> selectEntities(Key key) {
-        if (key == null) {
+    public <T> List<T> selectEntities(SearchCondition condition, String orderBy, String[] columns, CursorConverter<T> converter) {
+        if (condition == null) {
             throw new NullPointerException("Key can't be null");
         }
 
-        SearchCondition searchCondition = getSearchCondition(key);
-
-        List<Entity> entities = selectEntities(searchCondition, getOrderBy());
-        return entities;
-    }
-
-    @SuppressWarnings("UnnecessaryLocalVariable")
-    @Override
-    public List<Entity> selectAllEntities() {
-        List<Entity> entities = selectEntities(new SearchCondition(null, null), getOrderBy());
-        return entities;
-    }
+        if (converter == null) {
+            throw new NullPointerException("Converter can't be null");
+        }
 
-    @Override
-    public void clear() {
         Database database = getDatabase();
         try {
             database.open();
-            database.delete(
-                    getTableName(),
-                    null,
-                    null
-            );
+            return query(database, condition, orderBy, columns, converter, true);
         } finally {
             database.close();
         }
     }
 
+    @SuppressWarnings("UnnecessaryLocalVariable")
     @Override
-    public boolean contains(Key key) {
+    public List<Entity> selectEntities(Key key) {
         if (key == null) {
             throw new NullPointerException("Key can't be null");
         }
 
         SearchCondition searchCondition = getSearchCondition(key);
 
-        if (searchCondition == null) {
-            throw new IllegalStateException(SearchCondition.class.getName() + " can't be null");
-        }
-
-        long rowsCount = getRowCount(searchCondition);
-        return rowsCount > 0;
-    }
-
-    @Override
-    public long getRowCount() {
-        return getRowCount(null);
-    }
-
-    @Override
-    public long getRowCount(SearchCondition searchCondition) {
-        long result = 0;
-
         Database database = getDatabase();
-        Cursor cursor = null;
         try {
             database.open();
 
-            String columnName = "count";
-            String query = "SELECT count(*) AS " + columnName + " FROM " + getTableName();
-
-            String condition = searchCondition != null ? searchCondition.getWhereClause() : null;
-            if (!TextUtils.isEmpty(condition)) {
-                query = query + " WHERE " + condition;
+            EntityCache<Key, Entity> entityCache = mEntityCache;
+            if (entityCache == null || database.inTransaction()) {
+                List<Entity> entities = selectEntities(database, searchCondition, getOrderBy(), true);
+                return entities;
             }
 
-            String[] arguments = searchCondition != null ? searchCondition.getWhereArgs() : null;
-            cursor = database.rawQuery(query, arguments);
-            if (cursor.moveToFirst()) {
-                int columnIndex = cursor.getColumnIndex(columnName);
-                result = cursor.getLong(columnIndex);
+            List<Entity> cachedEntities = entityCache.get(key);
+            if (cachedEntities != null) {
+                return new ArrayList<>(cachedEntities);
             }
-        } finally {
-            if (cursor != null) {
-                cursor.close();
+
+            long version = mEntityCacheVersion.get();
+
+            List<Entity> entities = selectEntities(database, searchCondition, getOrderBy(), true);
+            entityCache.put(key, Collections.unmodifiableList(new ArrayList<>(entities)));
+
+            //entities could be changed while loading
+            if (mEntityCacheVersion.get() != version) {
+                entityCache.remove(key);
             }
 
+            return entities;
+        } finally {
             database.close();
         }
+    }
+
+    /**
+     * Selects entities on opened database and remembers their values for dirty tracking.
+     *
+     * @param useQueryCache false if result is unlikely to be requested again, so it must not take place in query cache.
+     */
+    private List<Entity> selectEntities(Database database, SearchCondition condition, String orderBy, boolean useQueryCache) {
+        DirtyTracker<Key> dirtyTracker = mDirtyTracker;
+        long trackerVersion = dirtyTracker != null ? dirtyTracker.getVersion() : 0;
+
+        List<Entity> result = query(database, condition, orderBy, null, getEntityConverter(), useQueryCache);
+
+        //values read inside of transaction may be rolled back
+        if (dirtyTracker != null && !database.inTransaction()) {
+            rememberSnapshots(dirtyTracker, result, trackerVersion);
+        }
 
         return result;
     }
 
-    protected long insert(Entity entity, ConflictType type) {
-        if (entity == null) {
-            return 0;
-        }
+    /**
+     * Runs select on opened database. Only results of {@link #getEntityConverter()} are stored in query cache,
+     * they are keyed by converter instance, so converters of the same class with different state are not mixed up.
+     */
+    private <T> List<T> query(Database database, SearchCondition condition, String orderBy, String[] columns,
+                              CursorConverter<T> converter, boolean useQueryCache) {
+        Cursor cursor = null;
+        try {
+            QueryCache queryCache = useQueryCache && converter == getEntityConverter() ? getQueryCache(database) : null;
+            QueryCache.QueryKey cacheKey = null;
+            long cacheStamp = 0;
 
-        EntityConverter<Entity> converter = getEntityConverter();
-        ContentValues contentValues = converter.toContentValues(entity);
+            if (queryCache != null) {
+                cacheKey = new QueryCache.QueryKey(getTableName(), converter, columns,
+                        condition.getWhereClause(), condition.getWhereArgs(), orderBy);
 
-        long id = 0;
+                @SuppressWarnings("unchecked")
+                List<T> cachedResult = (List<T>) queryCache.get(cacheKey);
+                if (cachedResult != null) {
+                    return cachedResult;
+                }
 
-        if (contentValues.size() > 0) {
-            Database database = getDatabase();
-            try {
-                database.open();
-                id = database.insert(getTableName(), null, contentValues, type);
-            } finally {
-                database.close();
+                cacheStamp = queryCache.getStamp();
             }
-        }
 
-        return id;
-    }
+            //canonical projection allows to read columns by ordinal
+            TableInfo tableInfo = columns == null ? getCanonicalTableInfo() : null;
 
-    protected void insert(List<Entity> entities, ConflictType type, boolean useTransaction) {
-        if (entities == null || entities.isEmpty()) {
-            return;
-        }
+            cursor = database.query(
+                    getTableName(),
+                    tableInfo != null ? tableInfo.getProjection() : columns,
+                    condition.getWhereClause(),
+                    condition.getWhereArgs(),
+                    null,
+                    null,
+                    orderBy,
+                    null
+            );
 
-        Database database = getDatabase();
-        try {
-            database.open();
+            List<T> result = parseCursor(cursor, converter, tableInfo);
 
-            if (useTransaction) {
-                database.beginTransaction();
+            if (queryCache != null) {
+                result = Collections.unmodifiableList(result);
+                queryCache.put(cacheKey, result, result.size(), cacheStamp);
             }
 
-            for (Entity entity : entities) {
-                insert(entity, type);
-            }
+            return result;
 
-            if (useTransaction) {
-                database.setTransactionSuccessful();
-            }
         } finally {
-            if (useTransaction) {
-                database.endTransaction();
+            if (cursor != null) {
+                cursor.close();
             }
-            database.close();
         }
     }
 
-    protected int update(Key key, Entity entity, ConflictType type) {
-        if (entity == null || key == null) {
-            return 0;
+    @Override
+    public List<Entity> selectEntitiesByKeys(Collection<Key> keys) {
+        if (keys == null) {
+            throw new NullPointerException("Keys can't be null");
         }
 
-        int rows = 0;
-
-        SearchCondition searchCondition = getSearchCondition(key);
-
-        EntityConverter<Entity> converter = getEntityConverter();
-        ContentValues contentValues = converter.toContentValues(entity);
-
-        if (contentValues.size() > 0) {
-            Database database = getDatabase();
-            try {
-                database.open();
-                rows = database.update(
-                        getTableName(),
-                        contentValues,
-                        searchCondition.getWhereClause(),
-                        searchCondition.getWhereArgs(),
-                        type
-                );
-            } finally {
-                database.close();
-            }
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        return rows;
-    }
+        List<Key> uniqueKeys = new ArrayList<>(new LinkedHashSet<>(keys));
 
-    protected int update(List<EntityHolder<Key, Entity>> entities, ConflictType type, boolean useTransaction) {
-        if (entities == null || entities.isEmpty()) {
-            return 0;
-        }
+        String keyColumnName = getKeyColumnName();
+        List<SearchCondition> conditions = !TextUtils.isEmpty(keyColumnName)
+                ? buildKeyColumnConditions(keyColumnName, uniqueKeys)
+                : buildCompositeKeyConditions(uniqueKeys);
 
-        int rows = 0;
+        List<Entity> result = new ArrayList<>(uniqueKeys.size());
+        String orderBy = getOrderBy();
 
         Database database = getDatabase();
         try {
             database.open();
 
-            if (useTransaction) {
-                database.beginTransaction();
-            }
-
-            for (EntityHolder<Key, Entity> holder : entities) {
-                rows += update(holder.getKey(), holder.getEntity(), type);
-            }
-
-            if (useTransaction) {
-                database.setTransactionSuccessful();
+            //chunks of keys rarely repeat, so they would only evict other results from query cache
+            for (SearchCondition condition : conditions) {
+                result.addAll(selectEntities(database, condition, orderBy, false));
             }
         } finally {
-            if (useTransaction) {
-                database.endTransaction();
-            }
-
             database.close();
         }
 
-        return rows;
+        return result;
     }
 
-    private List<Entity> parseCursor(Cursor cursor) {
-        List<Entity> result = new ArrayList<>();
-        if (cursor.getCount() > 0) {
-            cursor.moveToFirst();
-            CursorParser cursorParser = new CursorParser(cursor);
-            do {
-                EntityConverter<Entity> converter = getEntityConverter();
-                Entity entityNew = converter.toEntity(cursorParser);
+    @Override
+    public Map<Key, Entity> selectEntityMap(Collection<Key> keys) {
+        List<Entity> entities = selectEntitiesByKeys(keys);
+        Map<Key, Entity> result = new LinkedHashMap<>(entities.size() * 4 / 3 + 1);
+
+        for (Entity entity : entities) {
+            Key key = getEntityKey(entity);
+
+            if (key == null) {
+                throw new UnsupportedOperationException("Mapping by key requires getEntityKey() to be overridden");
+            }
+
+            if (!result.containsKey(key)) {
+                result.put(key, entity);
+            }
+        }
+
+        return result;
+    }
+
+    @SuppressWarnings("UnnecessaryLocalVariable")
+    @Override
+    public List<Entity> selectAllEntities() {
+        List<Entity> entities = selectEntities(new SearchCondition(null, null), getOrderBy());
+        return entities;
+    }
+
+    @Override
+    public EntityIterator<Entity> iterateEntities(SearchCondition condition, String orderBy) {
+        if (condition == null) {
+            throw new NullPointerException("Condition can't be null");
+        }
+
+        Database database = getDatabase();
+        database.open();
+
+        Cursor cursor = null;
+        try {
+            TableInfo tableInfo = getCanonicalTableInfo();
+
+            cursor = database.query(
+                    getTableName(),
+                    tableInfo != null ? tableInfo.getProjection() : null,
+                    condition.getWhereClause(),
+                    condition.getWhereArgs(),
+                    null,
+                    null,
+                    orderBy,
+                    null
+            );
+
+            return new CursorEntityIterator<>(database, cursor, getEntityConverter(), tableInfo);
+        } catch (RuntimeException e) {
+            if (cursor != null) {
+                cursor.close();
+            }
+            database.close();
+
+            throw e;
+        }
+    }
+
+    @Override
+    public EntityIterator<Entity> iterateAllEntities() {
+        return iterateEntities(new SearchCondition(null, null), getOrderBy());
+    }
+
+    @Override
+    public Page<Entity> selectPage(SearchCondition condition, String orderColumn, int pageSize, PageToken token) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size has to be greater than 0");
+        }
+
+        String keyColumnName = getKeyColumnName();
+        if (TextUtils.isEmpty(keyColumnName)) {
+            throw new UnsupportedOperationException("Pagination requires single key column, override getKeyColumnName()");
+        }
+
+        if (keyColumnName.equals(orderColumn)) {
+            orderColumn = null;
+        }
+
+        if (token != null && !TextUtils.equals(orderColumn, token.getOrderColumn())) {
+            throw new IllegalArgumentException("Token was created for another order column");
+        }
+
+        StringBuilder whereClause = new StringBuilder();
+        List<String> whereArgs = new ArrayList<>();
+
+        if (condition != null && !TextUtils.isEmpty(condition.getWhereClause())) {
+            whereClause.append('(').append(condition.getWhereClause()).append(')');
+
+            if (condition.getWhereArgs() != null) {
+                Collections.addAll(whereArgs, condition.getWhereArgs());
+            }
+        }
+
+        if (token != null) {
+            if (whereClause.length() > 0) {
+                whereClause.append(" AND ");
+            }
+
+            //expanded form of (orderColumn, key) > (?, ?), row values are not supported by old SQLite versions
+            if (orderColumn != null) {
+                String orderArgument = toSeekPlaceholder(token.getOrderValue());
+                whereClause.append('(').append(orderColumn).append('>').append(orderArgument).append(" OR (")
+                        .append(orderColumn).append('=').append(orderArgument).append(" AND ")
+                        .append(keyColumnName).append('>').append(toSeekPlaceholder(token.getKeyValue())).append("))");
+                whereArgs.add(toSeekArgument(token.getOrderValue()));
+                whereArgs.add(toSeekArgument(token.getOrderValue()));
+            } else {
+                whereClause.append(keyColumnName).append('>').append(toSeekPlaceholder(token.getKeyValue()));
+            }
+            whereArgs.add(toSeekArgument(token.getKeyValue()));
+        }
+
+        String orderBy = orderColumn != null ? orderColumn + "," + keyColumnName : keyColumnName;
+
+        Database database = getDatabase();
+        Cursor cursor = null;
+        try {
+            database.open();
+
+            TableInfo tableInfo = getCanonicalTableInfo();
+
+            //one extra row shows whether next page exists
+            cursor = database.query(
+                    getTableName(),
+                    tableInfo != null ? tableInfo.getProjection() : null,
+                    whereClause.length() > 0 ? whereClause.toString() : null,
+                    whereArgs.isEmpty() ? null : whereArgs.toArray(new String[whereArgs.size()]),
+                    null,
+                    null,
+                    orderBy,
+                    String.valueOf(pageSize + 1)
+            );
+
+            List<Entity> entities = new ArrayList<>(Math.min(cursor.getCount(), pageSize));
+            PageToken nextToken = null;
+
+            if (cursor.moveToFirst()) {
+                CursorParser cursorParser = new CursorParser(cursor, tableInfo);
+                EntityConverter<Entity> converter = getEntityConverter();
+
+                do {
+                    entities.add(converter.toEntity(cursorParser));
+                } while (entities.size() < pageSize && cursor.moveToNext());
+
+                if (cursor.getCount() > pageSize) {
+                    nextToken = new PageToken(
+                            orderColumn,
+                            orderColumn != null ? readSeekValue(cursor, cursorParser.getColumnIndex(orderColumn)) : null,
+                            readSeekValue(cursor, cursorParser.getColumnIndex(keyColumnName))
+                    );
+                }
+
+                cursorParser.releaseResources();
+            }
+
+            return new Page<>(entities, nextToken);
+
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            database.close();
+        }
+    }
+
+    @Override
+    public Page<Entity> selectPage(int pageSize, PageToken token) {
+        return selectPage(null, null, pageSize, token);
+    }
+
+    @Override
+    public void clear() {
+        Database database = getDatabase();
+        try {
+            database.open();
+            database.delete(
+                    getTableName(),
+                    null,
+                    null
+            );
+
+            invalidateCachedEntities(database, null);
+            discardSnapshots(database, null);
+        } finally {
+            database.close();
+        }
+    }
+
+    @Override
+    public boolean contains(Key key) {
+        if (key == null) {
+            throw new NullPointerException("Key can't be null");
+        }
+
+        SearchCondition searchCondition = getSearchCondition(key);
+
+        if (searchCondition == null) {
+            throw new IllegalStateException(SearchCondition.class.getName() + " can't be null");
+        }
+
+        long rowsCount = getRowCount(searchCondition);
+        return rowsCount > 0;
+    }
+
+    @Override
+    public long getRowCount() {
+        return getRowCount(null);
+    }
+
+    @Override
+    public long getRowCount(SearchCondition searchCondition) {
+        long result = 0;
+
+        Database database = getDatabase();
+        Cursor cursor = null;
+        try {
+            database.open();
+
+            String columnName = "count";
+
+            String condition = searchCondition != null ? searchCondition.getWhereClause() : null;
+            String[] arguments = searchCondition != null ? searchCondition.getWhereArgs() : null;
+
+            QueryCache queryCache = getQueryCache(database);
+            QueryCache.QueryKey cacheKey = null;
+            long cacheStamp = 0;
+
+            if (queryCache != null) {
+                cacheKey = new QueryCache.QueryKey(getTableName(), columnName, condition, arguments);
+
+                Long cachedResult = (Long) queryCache.get(cacheKey);
+                if (cachedResult != null) {
+                    return cachedResult;
+                }
+
+                cacheStamp = queryCache.getStamp();
+            }
+
+            cursor = database.query(
+                    getTableName(),
+                    new String[]{"count(*) AS " + columnName},
+                    TextUtils.isEmpty(condition) ? null : condition,
+                    arguments,
+                    null,
+                    null,
+                    null,
+                    null
+            );
+            if (cursor.moveToFirst()) {
+                int columnIndex = cursor.getColumnIndex(columnName);
+                result = cursor.getLong(columnIndex);
+            }
+
+            if (queryCache != null) {
+                queryCache.put(cacheKey, result, 1, cacheStamp);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+
+            database.close();
+        }
+
+        return result;
+    }
+
+    protected long insert(Entity entity, ConflictType type) {
+        if (entity == null) {
+            return 0;
+        }
+
+        EntityConverter<Entity> converter = getEntityConverter();
+
+        if (converter instanceof StatementBinder) {
+            @SuppressWarnings("unchecked")
+            StatementBinder<Entity> binder = (StatementBinder<Entity>) converter;
+            return insert(entity, binder, type);
+        }
+
+        ContentValues contentValues = converter.toContentValues(entity);
+
+        long id = 0;
+
+        if (contentValues.size() > 0) {
+            Database database = getDatabase();
+            try {
+                database.open();
+                id = database.insert(getTableName(), null, contentValues, type, keysOf(getEntityKey(entity)));
+
+                invalidateCachedEntities(database, getEntityKey(entity));
+                discardSnapshots(database, getEntityKey(entity));
+            } finally {
+                database.close();
+            }
+        }
+
+        return id;
+    }
+
+    private long insert(Entity entity, StatementBinder<Entity> binder, ConflictType type) {
+        Database database = getDatabase();
+        try {
+            database.open();
+            long id = database.insert(getTableName(), entity, binder, type, keysOf(getEntityKey(entity)));
+
+            invalidateCachedEntities(database, getEntityKey(entity));
+            discardSnapshots(database, getEntityKey(entity));
+
+            return id;
+        } finally {
+            database.close();
+        }
+    }
+
+    protected void insert(List<Entity> entities, ConflictType type, boolean useTransaction) {
+        if (entities == null || entities.isEmpty()) {
+            return;
+        }
+
+        Database database = getDatabase();
+        try {
+            database.open();
+
+            if (useTransaction) {
+                database.beginTransaction();
+            }
+
+            for (Entity entity : entities) {
+                insert(entity, type);
+            }
+
+            if (useTransaction) {
+                database.setTransactionSuccessful();
+            }
+        } finally {
+            if (useTransaction) {
+                database.endTransaction();
+            }
+            database.close();
+        }
+    }
+
+    /**
+     * Inserts entity or updates its non-key columns, key columns are returned by {@link #getKeyColumnNames()}.
+     *
+     * @return the number of rows inserted or updated.
+     */
+    protected int upsert(Entity entity) {
+        if (entity == null) {
+            return 0;
+        }
+
+        String[] keyColumns = getKeyColumnNames();
+        if (keyColumns == null || keyColumns.length == 0) {
+            throw new UnsupportedOperationException("Upsert requires key columns of " + getTableName());
+        }
+
+        EntityConverter<Entity> converter = getEntityConverter();
+        ContentValues contentValues = converter.toContentValues(entity);
+
+        int rows = 0;
+
+        if (contentValues.size() > 0) {
+            Database database = getDatabase();
+            try {
+                database.open();
+                rows = database.upsert(getTableName(), contentValues, keyColumns, keysOf(getEntityKey(entity)));
+
+                invalidateCachedEntities(database, getEntityKey(entity));
+                discardSnapshots(database, getEntityKey(entity));
+            } finally {
+                database.close();
+            }
+        }
+
+        return rows;
+    }
+
+    protected int upsert(List<Entity> entities, boolean useTransaction) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+
+        int rows = 0;
+
+        Database database = getDatabase();
+        try {
+            database.open();
+
+            if (useTransaction) {
+                database.beginTransaction();
+            }
+
+            for (Entity entity : entities) {
+                rows += upsert(entity);
+            }
+
+            if (useTransaction) {
+                database.setTransactionSuccessful();
+            }
+        } finally {
+            if (useTransaction) {
+                database.endTransaction();
+            }
+
+            database.close();
+        }
+
+        return rows;
+    }
+
+    protected int update(Key key, Entity entity, ConflictType type) {
+        if (entity == null || key == null) {
+            return 0;
+        }
+
+        int rows = 0;
+
+        SearchCondition searchCondition = getSearchCondition(key);
+
+        EntityConverter<Entity> converter = getEntityConverter();
+        ContentValues contentValues = converter.toContentValues(entity);
+
+        if (contentValues.size() > 0) {
+            Database database = getDatabase();
+            try {
+                database.open();
+                //key of entity can be changed by update
+                Key entityKey = getEntityKey(entity);
+                boolean keyChanged = entityKey == null || !entityKey.equals(key);
+
+                DirtyTracker<Key> dirtyTracker = !keyChanged ? mDirtyTracker : null;
+                long trackerVersion = 0;
+                ContentValues changedValues = contentValues;
+
+                if (dirtyTracker != null) {
+                    trackerVersion = dirtyTracker.getVersion();
+                    changedValues = DirtyTracker.diff(dirtyTracker.get(key), contentValues);
+
+                    if (changedValues.size() == 0) {
+                        //row already has the same values, but it could be deleted outside of this DAO
+                        return (int) getRowCount(searchCondition);
+                    }
+                }
+
+                rows = database.update(
+                        getTableName(),
+                        changedValues,
+                        searchCondition.getWhereClause(),
+                        searchCondition.getWhereArgs(),
+                        type,
+                        keyChanged ? keysOf(entityKey, key) : keysOf(key)
+                );
+
+                //another write could change columns skipped by the diff after snapshot was read, they are written again
+                if (changedValues != contentValues && dirtyTracker.getVersion() != trackerVersion) {
+                    rows = database.update(
+                            getTableName(),
+                            contentValues,
+                            searchCondition.getWhereClause(),
+                            searchCondition.getWhereArgs(),
+                            type,
+                            keysOf(key)
+                    );
+                }
+
+                //written values may be rolled back with transaction, so they are remembered only outside of it
+                if (dirtyTracker != null && rows > 0 && !database.inTransaction()) {
+                    dirtyTracker.onWritten(key, contentValues, trackerVersion);
+                } else {
+                    discardSnapshots(database, key);
+                }
+
+                invalidateCachedEntities(database, key);
+
+                if (keyChanged) {
+                    invalidateCachedEntities(database, entityKey);
+                    discardSnapshots(database, entityKey);
+                }
+            } finally {
+                database.close();
+            }
+        }
+
+        return rows;
+    }
+
+    protected int update(List<EntityHolder<Key, Entity>> entities, ConflictType type, boolean useTransaction) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+
+        int rows = 0;
+
+        Database database = getDatabase();
+        try {
+            database.open();
+
+            if (useTransaction) {
+                database.beginTransaction();
+            }
+
+            for (EntityHolder<Key, Entity> holder : entities) {
+                rows += update(holder.getKey(), holder.getEntity(), type);
+            }
+
+            if (useTransaction) {
+                database.setTransactionSuccessful();
+            }
+        } finally {
+            if (useTransaction) {
+                database.endTransaction();
+            }
+
+            database.close();
+        }
+
+        return rows;
+    }
+
+    protected void insert(List<Entity> entities, final ConflictType type, BatchWriteOptions options) {
+        writeInChunks(entities, options, new RowWriter<Entity>() {
+
+            @Override
+            public int write(Entity entity) {
+                return insert(entity, type) != -1 ? 1 : 0;
+            }
+        });
+    }
+
+    protected int update(List<EntityHolder<Key, Entity>> entities, final ConflictType type, BatchWriteOptions options) {
+        return writeInChunks(entities, options, new RowWriter<EntityHolder<Key, Entity>>() {
+
+            @Override
+            public int write(EntityHolder<Key, Entity> holder) {
+                return update(holder.getKey(), holder.getEntity(), type);
+            }
+        });
+    }
+
+    /**
+     * Writes items in transactions of limited size and duration.
+     *
+     * @return sum of rows returned by writer.
+     */
+    private <T> int writeInChunks(List<T> items, BatchWriteOptions options, RowWriter<T> writer) {
+        if (items == null || items.isEmpty()) {
+            return 0;
+        }
+
+        if (options == null) {
+            throw new NullPointerException("Batch options can't be null");
+        }
+
+        BatchProgressListener listener = options.getProgressListener();
+
+        int rows = 0;
+        int totalCount = items.size();
+        int processedCount = 0;
+
+        Database database = getDatabase();
+        boolean inTransaction = false;
+        try {
+            database.open();
+
+            //commits of chunks would be nested into outer transaction and hold all rows until it ends
+            if (database.inTransaction()) {
+                throw new IllegalStateException("Chunked write can't be run inside of transaction");
+            }
+
+            database.beginTransaction();
+            inTransaction = true;
+
+            int chunkCount = 0;
+            long chunkStartTime = SystemClock.uptimeMillis();
+
+            for (T item : items) {
+                rows += writer.write(item);
+                processedCount++;
+                chunkCount++;
+
+                boolean chunkCompleted = chunkCount >= options.getChunkSize() || (options.getChunkTimeMillis() > 0
+                        && SystemClock.uptimeMillis() - chunkStartTime >= options.getChunkTimeMillis());
+
+                if (chunkCompleted && processedCount < totalCount) {
+                    //yielding commits transaction and starts new one only if other threads wait for database
+                    if (!options.isYieldIfContended() || !database.yieldIfContendedSafely()) {
+                        database.setTransactionSuccessful();
+                        inTransaction = false;
+                        database.endTransaction();
+
+                        database.beginTransaction();
+                        inTransaction = true;
+                    }
+
+                    if (listener != null) {
+                        listener.onChunkCommitted(processedCount, totalCount);
+                    }
+
+                    chunkCount = 0;
+                    chunkStartTime = SystemClock.uptimeMillis();
+                }
+            }
+
+            database.setTransactionSuccessful();
+            inTransaction = false;
+            database.endTransaction();
+        } finally {
+            if (inTransaction) {
+                database.endTransaction();
+            }
+
+            database.close();
+        }
+
+        if (listener != null) {
+            listener.onChunkCommitted(processedCount, totalCount);
+        }
+
+        return rows;
+    }
+
+    private int delete(Database database, Key key) {
+        SearchCondition searchCondition = getSearchCondition(key);
+
+        int rows = database.delete(
+                getTableName(),
+                searchCondition.getWhereClause(),
+                searchCondition.getWhereArgs(),
+                keysOf(key)
+        );
+
+        invalidateCachedEntities(database, key);
+        discardSnapshots(database, key);
+
+        return rows;
+    }
+
+    /**
+     * Deletes rows by chunks of keys using "key IN (?,?,...)" condition,
+     * chunk size is limited by {@link Database#MAX_BIND_ARGUMENTS}.
+     */
+    private int deleteByKeyColumn(Database database, String keyColumnName, List<Key> keys) {
+        int rows = 0;
+
+        int size = keys.size();
+        for (int start = 0; start < size; start += Database.MAX_BIND_ARGUMENTS) {
+            int end = Math.min(start + Database.MAX_BIND_ARGUMENTS, size);
+
+            List<String> args = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                Key key = keys.get(i);
+                if (key != null) {
+                    args.add(String.valueOf(key));
+                }
+            }
+
+            if (!args.isEmpty()) {
+                String[] whereArgs = padInArguments(args);
+                rows += database.delete(
+                        getTableName(),
+                        buildInCondition(keyColumnName, whereArgs.length),
+                        whereArgs,
+                        keys.subList(start, end)
+                );
+            }
+
+            for (int i = start; i < end; i++) {
+                invalidateCachedEntities(database, keys.get(i));
+                discardSnapshots(database, keys.get(i));
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Evicts key written by {@link Batch} or {@link WriteCoalescer} from entity cache
+     * and drops its remembered column values.
+     *
+     * @param key key of written entity, null evicts all entities.
+     */
+    void onBatchWrite(Database database, Key key) {
+        invalidateCachedEntities(database, key);
+        discardSnapshots(database, key);
+    }
+
+    /**
+     * Evicts key from entity cache after write. If database is in transaction, key is evicted once more
+     * after the transaction ends, because other threads may cache uncommitted state until then.
+     *
+     * @param key key of written entity, null evicts all entities.
+     */
+    private void invalidateCachedEntities(Database database, Key key) {
+        if (mEntityCache == null) {
+            return;
+        }
+
+        if (!database.inTransaction()) {
+            evictCachedEntities(key);
+            return;
+        }
+
+        //whole cache is cleared only once, after the transaction ends
+        if (key != null) {
+            evictCachedEntities(key);
+        }
+
+        addTransactionWrite(database, key);
+    }
+
+    /**
+     * Drops remembered column values of key after write, and once more after the end of transaction,
+     * because other threads may remember values which are not committed yet or will be overwritten by commit.
+     *
+     * @param key key of written entity, null drops all keys.
+     */
+    private void discardSnapshots(Database database, Key key) {
+        DirtyTracker<Key> dirtyTracker = mDirtyTracker;
+
+        if (dirtyTracker == null) {
+            return;
+        }
+
+        if (!database.inTransaction()) {
+            dirtyTracker.remove(key);
+            return;
+        }
+
+        if (key != null) {
+            dirtyTracker.remove(key);
+        }
+
+        addTransactionWrite(database, key);
+    }
+
+    /**
+     * Collects keys written in transaction of current thread. Collected keys are evicted from entity cache and
+     * dirty tracking by one action run after the transaction ends, instead of an action per written row.
+     */
+    private void addTransactionWrite(Database database, Key key) {
+        TransactionWrites<Key> writes = mTransactionWrites.get();
+
+        if (writes == null) {
+            writes = new TransactionWrites<>();
+            mTransactionWrites.set(writes);
+
+            database.runAfterTransaction(new Runnable() {
+
+                @Override
+                public void run() {
+                    TransactionWrites<Key> writes = mTransactionWrites.get();
+                    mTransactionWrites.remove();
+
+                    if (writes != null) {
+                        onTransactionWritesEnded(writes);
+                    }
+                }
+            });
+        }
+
+        if (key == null) {
+            writes.allKeys = true;
+        } else if (!writes.allKeys) {
+            writes.keys.add(key);
+        }
+    }
+
+    private void onTransactionWritesEnded(TransactionWrites<Key> writes) {
+        DirtyTracker<Key> dirtyTracker = mDirtyTracker;
+
+        if (writes.allKeys) {
+            evictCachedEntities(null);
+
+            if (dirtyTracker != null) {
+                dirtyTracker.remove(null);
+            }
+            return;
+        }
+
+        for (Key key : writes.keys) {
+            evictCachedEntities(key);
+
+            if (dirtyTracker != null) {
+                dirtyTracker.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return table info if it describes columns, so entities can be queried by canonical projection, otherwise null.
+     */
+    private TableInfo getCanonicalTableInfo() {
+        TableInfo tableInfo = getTableInfo();
+        return tableInfo != null && tableInfo.hasColumns() ? tableInfo : null;
+    }
+
+    /**
+     * @return query cache of database or null if it's disabled or current thread is in transaction,
+     * results of transaction may be not committed yet and must not be shared.
+     */
+    private static QueryCache getQueryCache(Database database) {
+        QueryCache queryCache = database.getQueryCache();
+        return queryCache != null && !database.inTransaction() ? queryCache : null;
+    }
+
+    private void evictCachedEntities(Key key) {
+        EntityCache<Key, Entity> entityCache = mEntityCache;
+
+        if (entityCache == null) {
+            return;
+        }
+
+        mEntityCacheVersion.incrementAndGet();
+
+        if (key != null) {
+            entityCache.remove(key);
+        } else {
+            entityCache.clear();
+        }
+    }
+
+    /**
+     * Remembers column values of loaded entities, keys loaded more than once are not tracked.
+     */
+    private void rememberSnapshots(DirtyTracker<Key> dirtyTracker, List<Entity> entities, long version) {
+        EntityConverter<Entity> converter = getEntityConverter();
+        Map<Key, ContentValues> snapshots = new HashMap<>();
+        Set<Key> duplicateKeys = new HashSet<>();
+
+        for (Entity entity : entities) {
+            Key key = getEntityKey(entity);
+
+            if (key != null && snapshots.put(key, converter.toContentValues(entity)) != null) {
+                duplicateKeys.add(key);
+            }
+        }
+
+        for (Map.Entry<Key, ContentValues> entry : snapshots.entrySet()) {
+            if (!duplicateKeys.contains(entry.getKey())) {
+                dirtyTracker.putIfUnchanged(entry.getKey(), entry.getValue(), version);
+            }
+        }
+    }
+
+    /**
+     * @return key of changed row reported to table observers, null if it's unknown.
+     */
+    private static <K> List<K> keysOf(K key) {
+        return key != null ? Collections.singletonList(key) : null;
+    }
+
+    /**
+     * @return keys of changed rows reported to table observers, null if any of them is unknown.
+     */
+    private static <K> List<K> keysOf(K first, K second) {
+        return first != null && second != null ? Arrays.asList(first, second) : null;
+    }
+
+    /**
+     * @return "key IN (?,?,...)" conditions by chunks of {@link Database#MAX_BIND_ARGUMENTS} keys.
+     */
+    private static <K> List<SearchCondition> buildKeyColumnConditions(String keyColumnName, List<K> keys) {
+        List<SearchCondition> conditions = new ArrayList<>();
+
+        int size = keys.size();
+        for (int start = 0; start < size; start += Database.MAX_BIND_ARGUMENTS) {
+            int end = Math.min(start + Database.MAX_BIND_ARGUMENTS, size);
+
+            List<String> args = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                K key = keys.get(i);
+                if (key != null) {
+                    args.add(String.valueOf(key));
+                }
+            }
+
+            if (!args.isEmpty()) {
+                String[] whereArgs = padInArguments(args);
+                conditions.add(new SearchCondition(buildInCondition(keyColumnName, whereArgs.length), whereArgs));
+            }
+        }
+
+        return conditions;
+    }
+
+    /**
+     * Joins conditions of {@link #getSearchCondition(Object)} by OR. Count of keys in one condition is limited
+     * by {@link #COMPOSITE_KEYS_PER_QUERY} to keep expression depth low and by {@link Database#MAX_BIND_ARGUMENTS}.
+     */
+    private List<SearchCondition> buildCompositeKeyConditions(List<Key> keys) {
+        List<SearchCondition> conditions = new ArrayList<>();
+
+        StringBuilder whereClause = new StringBuilder();
+        List<String> whereArgs = new ArrayList<>();
+        int keyCount = 0;
+
+        for (Key key : keys) {
+            if (key == null) {
+                continue;
+            }
+
+            SearchCondition condition = getSearchCondition(key);
+            String[] args = condition.getWhereArgs();
+            int argsCount = args != null ? args.length : 0;
+
+            if (keyCount > 0 && (keyCount >= COMPOSITE_KEYS_PER_QUERY
+                    || whereArgs.size() + argsCount > Database.MAX_BIND_ARGUMENTS)) {
+                conditions.add(new SearchCondition(whereClause.toString(), whereArgs.toArray(new String[whereArgs.size()])));
+
+                whereClause.setLength(0);
+                whereArgs.clear();
+                keyCount = 0;
+            }
+
+            whereClause.append(keyCount > 0 ? " OR (" : "(").append(condition.getWhereClause()).append(')');
+            if (args != null) {
+                Collections.addAll(whereArgs, args);
+            }
+            keyCount++;
+        }
+
+        if (keyCount > 0) {
+            conditions.add(new SearchCondition(whereClause.toString(), whereArgs.toArray(new String[whereArgs.size()])));
+        }
+
+        return conditions;
+    }
+
+    /**
+     * Reads value of page token with its storage class. Old versions without {@link Cursor#getType(int)}
+     * read text, which rounds REAL values.
+     */
+    private static Object readSeekValue(Cursor cursor, int columnIndex) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            return cursor.getString(columnIndex);
+        }
+
+        return readTypedValue(cursor, columnIndex);
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private static Object readTypedValue(Cursor cursor, int columnIndex) {
+        switch (cursor.getType(columnIndex)) {
+            case Cursor.FIELD_TYPE_NULL:
+                return null;
+            case Cursor.FIELD_TYPE_INTEGER:
+                return cursor.getLong(columnIndex);
+            case Cursor.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(columnIndex);
+            default:
+                return cursor.getString(columnIndex);
+        }
+    }
+
+    /**
+     * Selection arguments are bound as text, numbers are cast back to their storage class, so they are compared
+     * as numbers with any column affinity. {@link Double#toString(double)} keeps all digits of REAL value.
+     */
+    private static String toSeekPlaceholder(Object value) {
+        if (value instanceof Long) {
+            return "CAST(? AS INTEGER)";
+        } else if (value instanceof Double) {
+            return "CAST(? AS REAL)";
+        }
+
+        return "?";
+    }
+
+    private static String toSeekArgument(Object value) {
+        return value != null ? String.valueOf(value) : null;
+    }
+
+    /**
+     * Rounds count of IN arguments up to power of two, at most {@link Database#MAX_BIND_ARGUMENTS},
+     * so chunks of different sizes share a few compiled statements instead of filling statement cache.
+     * Added arguments repeat the last one, which doesn't change result of IN.
+     */
+    private static String[] padInArguments(List<String> args) {
+        int size = args.size();
+        int count = 1;
+        while (count < size) {
+            count <<= 1;
+        }
+        count = Math.min(count, Math.max(size, Database.MAX_BIND_ARGUMENTS));
+
+        String[] paddedArgs = new String[count];
+        for (int i = 0; i < size; i++) {
+            paddedArgs[i] = args.get(i);
+        }
+        Arrays.fill(paddedArgs, size, count, args.get(size - 1));
+
+        return paddedArgs;
+    }
+
+    private static String buildInCondition(String columnName, int count) {
+        StringBuilder builder = new StringBuilder(columnName.length() + 6 + count * 2);
+        builder.append(columnName).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            builder.append(i > 0 ? ",?" : "?");
+        }
+        builder.append(')');
+
+        return builder.toString();
+    }
+
+    private <T> List<T> parseCursor(Cursor cursor, CursorConverter<T> converter, TableInfo tableInfo) {
+        int count = cursor.getCount();
+        List<T> result = new ArrayList<>(count);
+        if (count > 0) {
+            cursor.moveToFirst();
+            CursorParser cursorParser = new CursorParser(cursor, tableInfo);
+            do {
+                T entityNew = converter.toEntity(cursorParser);
 
                 result.add(entityNew);
             } while (cursor.moveToNext());
@@ -411,6 +1595,11 @@ public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
         return result;
     }
 
+    private interface RowWriter<T> {
+
+        int write(T item);
+    }
+
     protected abstract String getDatabaseName();
 
     protected abstract String getTableName();
@@ -421,4 +1610,63 @@ public abstract class BaseDAO<Key, Entity> implements IDAO<Key, Entity> {
 
     protected abstract EntityConverter<Entity> getEntityConverter();
 
+    /**
+     * Returns descriptor of DAO table. If it has {@link Column} descriptors, entities are queried with
+     * canonical projection of the table and {@link CursorParser} reads these columns by ordinal.
+     * Returns null by default, in this case all columns are queried and read by name.
+     */
+    protected TableInfo getTableInfo() {
+        return null;
+    }
+
+    /**
+     * Returns name of column which stores {@link Key} if key is a single column,
+     * key value has to match condition of {@link #getSearchCondition(Object)}.
+     * Enables set based operations over several keys, e.g. {@link #deleteEntities(List, boolean)}.
+     * Returns null by default, for composite keys operations are executed key by key.
+     */
+    protected String getKeyColumnName() {
+        return null;
+    }
+
+    /**
+     * Returns columns of primary key or unique index which identify row of entity, used as conflict target of
+     * {@link #upsertEntity(Object)}. Returns {@link #getKeyColumnName()} by default or primary key columns
+     * of {@link #getTableInfo()}, has to be overridden for other composite keys.
+     */
+    protected String[] getKeyColumnNames() {
+        String keyColumnName = getKeyColumnName();
+        if (keyColumnName != null) {
+            return new String[]{keyColumnName};
+        }
+
+        TableInfo tableInfo = getTableInfo();
+        if (tableInfo == null) {
+            return null;
+        }
+
+        List<String> primaryKey = new ArrayList<>();
+        for (Column<?> column : tableInfo.getColumns()) {
+            if (column.isPrimaryKey()) {
+                primaryKey.add(column.getName());
+            }
+        }
+
+        return !primaryKey.isEmpty() ? primaryKey.toArray(new String[primaryKey.size()]) : null;
+    }
+
+    /**
+     * Returns key of entity, used to evict only written key from entity cache on insert.
+     * Returns null by default, in this case inserts clear whole entity cache: every insert made outside of transaction,
+     * or once after the end of transaction containing inserts. Override it if entity cache or dirty tracking is enabled.
+     */
+    protected Key getEntityKey(Entity entity) {
+        return null;
+    }
+
+    private static class TransactionWrites<Key> {
+
+        private final Set<Key> keys = new HashSet<>();
+        private boolean allKeys;
+    }
 }
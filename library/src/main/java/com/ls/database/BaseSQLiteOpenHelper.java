@@ -39,6 +39,7 @@ public abstract class BaseSQLiteOpenHelper extends SQLiteOpenHelper {
 
 	private Context appContext;
 	private String dbName;
+	private DatabaseTuning tuning;
 
 	public BaseSQLiteOpenHelper(
 			Context context,
@@ -79,6 +80,39 @@ public abstract class BaseSQLiteOpenHelper extends SQLiteOpenHelper {
 		return appContext;
 	}
 
+	public DatabaseTuning getTuning() {
+		return tuning;
+	}
+
+	/**
+	 * Sets connection tuning, has to be called before database is opened.
+	 * Tuning is applied in {@link #onConfigure(SQLiteDatabase)} on API 16 and above
+	 * or in {@link #onOpen(SQLiteDatabase)} on older versions. Per connection pragmas don't reach
+	 * connections which Android opens by itself, see {@link DatabaseTuning}.
+	 */
+	public void setTuning(DatabaseTuning tuning) {
+		this.tuning = tuning;
+	}
+
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	@Override
+	public void onConfigure(SQLiteDatabase db) {
+		super.onConfigure(db);
+
+		if (tuning != null) {
+			tuning.apply(db);
+		}
+	}
+
+	@Override
+	public void onOpen(SQLiteDatabase db) {
+		super.onOpen(db);
+
+		if (tuning != null && Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+			tuning.apply(db);
+		}
+	}
+
 	@Override
 	public void onCreate(SQLiteDatabase db) {
 		createDatabase(db);
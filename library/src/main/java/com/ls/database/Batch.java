@@ -0,0 +1,443 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.model.ConflictType;
+import com.ls.database.model.SearchCondition;
+
+import android.content.ContentValues;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit of work which collects inserts, updates and deletes of several DAOs of the same {@link Database}
+ * and executes them in one transaction.
+ * <p/>
+ * Operations are grouped by table, tables are written in order of their first operation.
+ * Consecutive operations of the table with the same statement, e.g. inserts of the same columns or updates by
+ * the same condition, form one group executed with one compiled statement. Operations of one table keep their order,
+ * operations of different tables are not ordered, so foreign keys between them have to be deferred.
+ * <p/>
+ * Entities are converted when batch is executed. Batch is not thread safe, it's cleared after execution
+ * and can be reused.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class Batch {
+
+    private Database mDatabase;
+    private final List<Operation<?, ?>> mOperations = new ArrayList<>();
+
+    /**
+     * @return index of operation in results of {@link #execute()}.
+     */
+    public <Key, Entity> int insert(BaseDAO<Key, Entity> dao, Entity entity) {
+        return add(new InsertOperation<>(dao, mOperations.size(), entity, ConflictType.CONFLICT_NONE));
+    }
+
+    public <Key, Entity> int insertOrReplace(BaseDAO<Key, Entity> dao, Entity entity) {
+        return add(new InsertOperation<>(dao, mOperations.size(), entity, ConflictType.CONFLICT_REPLACE));
+    }
+
+    public <Key, Entity> int update(BaseDAO<Key, Entity> dao, Key key, Entity entity) {
+        return add(new UpdateOperation<>(dao, mOperations.size(), key, entity, ConflictType.CONFLICT_NONE));
+    }
+
+    public <Key, Entity> int updateOrReplace(BaseDAO<Key, Entity> dao, Key key, Entity entity) {
+        return add(new UpdateOperation<>(dao, mOperations.size(), key, entity, ConflictType.CONFLICT_REPLACE));
+    }
+
+    public <Key, Entity> int delete(BaseDAO<Key, Entity> dao, Key key) {
+        return add(new DeleteOperation<>(dao, mOperations.size(), key));
+    }
+
+    public int size() {
+        return mOperations.size();
+    }
+
+    /**
+     * Executes all operations in one transaction. If any update or delete fails, the transaction is rolled back
+     * and exception is thrown. Failed inserts get -1 result like {@link BaseDAO#insertEntity(Object)}.
+     *
+     * @return row ID for every insert and the number of affected rows for every update and delete,
+     * in order of operations. Operations without values get 0.
+     */
+    public long[] execute() {
+        long[] results = new long[mOperations.size()];
+
+        if (mOperations.isEmpty()) {
+            return results;
+        }
+
+        List<List<Operation<?, ?>>> groups = groupOperations();
+        Database database = mDatabase;
+
+        mOperations.clear();
+        mDatabase = null;
+
+        try {
+            database.open();
+            database.beginTransaction();
+            try {
+                for (List<Operation<?, ?>> group : groups) {
+                    executeGroup(database, group, results);
+                }
+
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
+        } finally {
+            database.close();
+        }
+
+        return results;
+    }
+
+    private int add(Operation<?, ?> operation) {
+        Database database = operation.dao.getDatabase();
+
+        if (mDatabase == null) {
+            mDatabase = database;
+        } else if (mDatabase != database) {
+            throw new IllegalArgumentException("Table " + operation.table + " belongs to another database");
+        }
+
+        mOperations.add(operation);
+        return operation.index;
+    }
+
+    /**
+     * Prepares statements of operations and splits them into groups executed with one statement.
+     */
+    private List<List<Operation<?, ?>>> groupOperations() {
+        Map<String, List<List<Operation<?, ?>>>> tableGroups = new LinkedHashMap<>();
+
+        for (Operation<?, ?> operation : mOperations) {
+            operation.prepare();
+
+            if (operation.sql == null) {
+                continue;
+            }
+
+            List<List<Operation<?, ?>>> groups = tableGroups.get(operation.table);
+            if (groups == null) {
+                groups = new ArrayList<>();
+                tableGroups.put(operation.table, groups);
+            }
+
+            List<Operation<?, ?>> group = !groups.isEmpty() ? groups.get(groups.size() - 1) : null;
+            if (group == null || !group.get(0).sql.equals(operation.sql)) {
+                group = new ArrayList<>();
+                groups.add(group);
+            }
+
+            group.add(operation);
+        }
+
+        List<List<Operation<?, ?>>> result = new ArrayList<>();
+        for (List<List<Operation<?, ?>>> groups : tableGroups.values()) {
+            result.addAll(groups);
+        }
+
+        return result;
+    }
+
+    private static void executeGroup(Database database, List<Operation<?, ?>> group, long[] results) {
+        Operation<?, ?> first = group.get(0);
+
+        if (!first.isInsert() && Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            //compiled UPDATE and DELETE statements can't return the number of affected rows
+            for (Operation<?, ?> operation : group) {
+                results[operation.index] = operation.executeSeparately(database);
+            }
+        } else {
+            List<Object> changedKeys = new ArrayList<>(group.size() * 2);
+            boolean keysKnown = true;
+
+            for (Operation<?, ?> operation : group) {
+                keysKnown &= operation.collectChangedKeys(changedKeys);
+            }
+
+            long[] groupResults = database.executeGroup(first.table, first.sql, group, first.isInsert(),
+                    keysKnown ? changedKeys : null);
+
+            for (int i = 0; i < groupResults.length; i++) {
+                results[group.get(i).index] = groupResults[i];
+            }
+        }
+
+        for (Operation<?, ?> operation : group) {
+            operation.onWritten(database);
+        }
+    }
+
+    private static Object[] toBindArgs(ContentValues values, String[] columns, String[] whereArgs) {
+        int argsCount = whereArgs != null ? whereArgs.length : 0;
+        Object[] bindArgs = new Object[columns.length + argsCount];
+
+        for (int i = 0; i < columns.length; i++) {
+            bindArgs[i] = values.get(columns[i]);
+        }
+
+        for (int i = 0; i < argsCount; i++) {
+            bindArgs[columns.length + i] = whereArgs[i];
+        }
+
+        return bindArgs;
+    }
+
+    private static String[] columnsOf(ContentValues values) {
+        List<String> columns = new ArrayList<>(values.size());
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            columns.add(entry.getKey());
+        }
+
+        return columns.toArray(new String[columns.size()]);
+    }
+
+    private abstract static class Operation<Key, Entity> implements Database.RowBinder {
+
+        final BaseDAO<Key, Entity> dao;
+        final int index;
+        final String table;
+
+        /**
+         * Statement of operation, null if operation has nothing to write.
+         */
+        String sql;
+        Object[] bindArgs;
+
+        Operation(BaseDAO<Key, Entity> dao, int index) {
+            this.dao = dao;
+            this.index = index;
+            this.table = dao.getTableName();
+        }
+
+        abstract void prepare();
+
+        abstract boolean isInsert();
+
+        /**
+         * @return false if keys of changed rows are unknown.
+         */
+        abstract boolean collectChangedKeys(List<Object> keys);
+
+        abstract void onWritten(Database database);
+
+        /**
+         * Executes update or delete without compiled statement.
+         */
+        long executeSeparately(Database database) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void bindRow(SQLiteStatement statement) {
+            for (int i = 0; i < bindArgs.length; i++) {
+                DatabaseUtils.bindObjectToProgram(statement, i + 1, bindArgs[i]);
+            }
+        }
+    }
+
+    private static class InsertOperation<Key, Entity> extends Operation<Key, Entity> {
+
+        private final Entity entity;
+        private final ConflictType type;
+        private StatementBinder<Entity> binder;
+
+        InsertOperation(BaseDAO<Key, Entity> dao, int index, Entity entity, ConflictType type) {
+            super(dao, index);
+
+            if (entity == null) {
+                throw new IllegalArgumentException("Entity can't be null");
+            }
+
+            this.entity = entity;
+            this.type = type;
+        }
+
+        @Override
+        void prepare() {
+            EntityConverter<Entity> converter = dao.getEntityConverter();
+
+            if (converter instanceof StatementBinder) {
+                @SuppressWarnings("unchecked")
+                StatementBinder<Entity> statementBinder = (StatementBinder<Entity>) converter;
+                binder = statementBinder;
+                sql = Database.buildInsertSql(table, binder.getColumnNames(), type);
+                return;
+            }
+
+            ContentValues values = converter.toContentValues(entity);
+
+            if (values.size() > 0) {
+                String[] columns = columnsOf(values);
+                sql = Database.buildInsertSql(table, columns, type);
+                bindArgs = toBindArgs(values, columns, null);
+            }
+        }
+
+        @Override
+        boolean isInsert() {
+            return true;
+        }
+
+        @Override
+        boolean collectChangedKeys(List<Object> keys) {
+            Key key = dao.getEntityKey(entity);
+            return key != null && keys.add(key);
+        }
+
+        @Override
+        void onWritten(Database database) {
+            dao.onBatchWrite(database, dao.getEntityKey(entity));
+        }
+
+        @Override
+        public void bindRow(SQLiteStatement statement) {
+            if (binder != null) {
+                binder.bindValues(statement, entity);
+            } else {
+                super.bindRow(statement);
+            }
+        }
+    }
+
+    private static class UpdateOperation<Key, Entity> extends Operation<Key, Entity> {
+
+        private final Key key;
+        private final Entity entity;
+        private final ConflictType type;
+
+        private ContentValues values;
+        private SearchCondition condition;
+        private Key entityKey;
+
+        UpdateOperation(BaseDAO<Key, Entity> dao, int index, Key key, Entity entity, ConflictType type) {
+            super(dao, index);
+
+            if (key == null || entity == null) {
+                throw new IllegalArgumentException("Key and entity can't be null");
+            }
+
+            this.key = key;
+            this.entity = entity;
+            this.type = type;
+        }
+
+        @Override
+        void prepare() {
+            values = dao.getEntityConverter().toContentValues(entity);
+
+            if (values.size() > 0) {
+                String[] columns = columnsOf(values);
+                condition = dao.getSearchCondition(key);
+                sql = Database.buildUpdateSql(table, columns, condition.getWhereClause(), type);
+                bindArgs = toBindArgs(values, columns, condition.getWhereArgs());
+
+                //key of entity can be changed by update
+                entityKey = dao.getEntityKey(entity);
+            }
+        }
+
+        @Override
+        boolean isInsert() {
+            return false;
+        }
+
+        @Override
+        boolean collectChangedKeys(List<Object> keys) {
+            keys.add(key);
+            return entityKey != null && keys.add(entityKey);
+        }
+
+        @Override
+        void onWritten(Database database) {
+            dao.onBatchWrite(database, key);
+
+            if (entityKey == null || !entityKey.equals(key)) {
+                dao.onBatchWrite(database, entityKey);
+            }
+        }
+
+        @Override
+        long executeSeparately(Database database) {
+            List<Object> keys = new ArrayList<>(2);
+            return database.update(table, values, condition.getWhereClause(), condition.getWhereArgs(), type,
+                    collectChangedKeys(keys) ? keys : null);
+        }
+    }
+
+    private static class DeleteOperation<Key, Entity> extends Operation<Key, Entity> {
+
+        private final Key key;
+        private SearchCondition condition;
+
+        DeleteOperation(BaseDAO<Key, Entity> dao, int index, Key key) {
+            super(dao, index);
+
+            if (key == null) {
+                throw new IllegalArgumentException("Key can't be null");
+            }
+
+            this.key = key;
+        }
+
+        @Override
+        void prepare() {
+            condition = dao.getSearchCondition(key);
+            sql = Database.buildDeleteSql(table, condition.getWhereClause());
+            bindArgs = condition.getWhereArgs() != null ? condition.getWhereArgs() : new Object[0];
+        }
+
+        @Override
+        boolean isInsert() {
+            return false;
+        }
+
+        @Override
+        boolean collectChangedKeys(List<Object> keys) {
+            return keys.add(key);
+        }
+
+        @Override
+        void onWritten(Database database) {
+            dao.onBatchWrite(database, key);
+        }
+
+        @Override
+        long executeSeparately(Database database) {
+            return database.delete(table, condition.getWhereClause(), condition.getWhereArgs(),
+                    Collections.singletonList(key));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.model.CursorParser;
+import com.ls.database.model.Projection;
+import com.ls.database.model.TypedColumn;
+
+import android.text.TextUtils;
+
+/**
+ * Typed descriptor of table column. Column is attached to one {@link TableInfo}, which assigns its ordinal
+ * in canonical projection of the table, see {@link TableInfo#getColumnNames()}. Cursors of that projection are read
+ * by ordinal, see {@link CursorParser#read(TypedColumn)}.
+ * <p/>
+ * Supported types are wrappers of primitives, String, byte[] and enums, which are stored by name.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public final class Column<T> implements TypedColumn<T> {
+
+    public enum SqlType {
+        INTEGER, REAL, NUMERIC, TEXT, BLOB
+    }
+
+    /**
+     * Java types of values, resolved once per column to read values without type checks.
+     */
+    private enum ValueType {
+        LONG(SqlType.INTEGER),
+        INT(SqlType.INTEGER),
+        SHORT(SqlType.INTEGER),
+        BYTE(SqlType.INTEGER),
+        BOOLEAN(SqlType.INTEGER),
+        DOUBLE(SqlType.NUMERIC),
+        FLOAT(SqlType.NUMERIC),
+        STRING(SqlType.TEXT),
+        ENUM(SqlType.TEXT),
+        BLOB(SqlType.BLOB);
+
+        private final SqlType sqlType;
+
+        ValueType(SqlType sqlType) {
+            this.sqlType = sqlType;
+        }
+    }
+
+    private final String name;
+    private final Class<T> type;
+    private final ValueType valueType;
+    private final boolean primaryKey;
+    private final boolean nullable;
+
+    private TableInfo tableInfo;
+    private int ordinal = -1;
+
+    /**
+     * @param primaryKey true if column is primary key or part of composite primary key.
+     * @param nullable false adds NOT NULL constraint.
+     */
+    public Column(String name, Class<T> type, boolean primaryKey, boolean nullable) {
+        if (TextUtils.isEmpty(name)) {
+            throw new IllegalArgumentException("Column name can't be empty");
+        }
+
+        if (type == null) {
+            throw new NullPointerException("Column type can't be null");
+        }
+
+        this.name = name;
+        this.type = type;
+        this.valueType = resolveValueType(type);
+        this.primaryKey = primaryKey;
+        this.nullable = nullable;
+    }
+
+    /**
+     * Creates nullable column which is not a part of primary key.
+     */
+    public Column(String name, Class<T> type) {
+        this(name, type, false, true);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public SqlType getSqlType() {
+        return valueType.sqlType;
+    }
+
+    public boolean isPrimaryKey() {
+        return primaryKey;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    /**
+     * @return table of column or null if column is not added to any table yet.
+     */
+    public TableInfo getTableInfo() {
+        return tableInfo;
+    }
+
+    /**
+     * @return table of column, its canonical projection contains column at {@link #getOrdinal()}.
+     */
+    @Override
+    public Projection getProjection() {
+        return tableInfo;
+    }
+
+    /**
+     * @return index of column in canonical projection of its table, -1 if column is not added to any table yet.
+     */
+    @Override
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    @Override
+    public String toString() {
+        return (tableInfo != null ? tableInfo.getTableName() + "." : "") + name;
+    }
+
+    /**
+     * Reads value of this column from current row of parser, prefer {@link CursorParser#read(TypedColumn)}
+     * which resolves column index.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read(CursorParser parser, int columnIndex) {
+        switch (valueType) {
+            case LONG:
+                return (T) parser.readLong(columnIndex);
+            case INT:
+                return (T) parser.readInteger(columnIndex);
+            case SHORT:
+                return (T) parser.readShort(columnIndex);
+            case BYTE:
+                return (T) parser.readByte(columnIndex);
+            case BOOLEAN:
+                return (T) parser.readBoolean(columnIndex);
+            case DOUBLE:
+                return (T) parser.readDouble(columnIndex);
+            case FLOAT:
+                return (T) parser.readFloat(columnIndex);
+            case STRING:
+                return (T) parser.readString(columnIndex);
+            case BLOB:
+                return (T) parser.readBlob(columnIndex);
+            case ENUM:
+                String enumName = parser.readString(columnIndex);
+                return !TextUtils.isEmpty(enumName) ? (T) Enum.valueOf((Class) type, enumName) : null;
+            default:
+                throw new IllegalStateException("Unknown type " + valueType);
+        }
+    }
+
+    /**
+     * @return column definition of CREATE TABLE statement, primary key is added only if it's single column key.
+     */
+    String getDefinition(boolean singlePrimaryKey) {
+        StringBuilder definition = new StringBuilder(name.length() + 32);
+        definition.append(name).append(' ').append(valueType.sqlType.name());
+
+        if (primaryKey && singlePrimaryKey) {
+            definition.append(" PRIMARY KEY");
+        }
+
+        if (!nullable) {
+            definition.append(" NOT NULL");
+        }
+
+        return definition.toString();
+    }
+
+    void attach(TableInfo tableInfo, int ordinal) {
+        if (this.tableInfo != null) {
+            throw new IllegalStateException("Column " + this + " is already added to table");
+        }
+
+        this.tableInfo = tableInfo;
+        this.ordinal = ordinal;
+    }
+
+    private static ValueType resolveValueType(Class<?> type) {
+        if (type == Long.class || type == long.class) {
+            return ValueType.LONG;
+        } else if (type == Integer.class || type == int.class) {
+            return ValueType.INT;
+        } else if (type == Short.class || type == short.class) {
+            return ValueType.SHORT;
+        } else if (type == Byte.class || type == byte.class) {
+            return ValueType.BYTE;
+        } else if (type == Boolean.class || type == boolean.class) {
+            return ValueType.BOOLEAN;
+        } else if (type == Double.class || type == double.class) {
+            return ValueType.DOUBLE;
+        } else if (type == Float.class || type == float.class) {
+            return ValueType.FLOAT;
+        } else if (type == String.class) {
+            return ValueType.STRING;
+        } else if (type == byte[].class) {
+            return ValueType.BLOB;
+        } else if (type.isEnum()) {
+            return ValueType.ENUM;
+        }
+
+        throw new IllegalArgumentException("Type " + type.getName() + " is not supported");
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.model.CursorParser;
+import com.ls.database.model.EntityIterator;
+
+import android.database.Cursor;
+
+import java.util.NoSuchElementException;
+
+/**
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+class CursorEntityIterator<Entity> implements EntityIterator<Entity> {
+
+    private Database database;
+    private Cursor cursor;
+    private CursorParser cursorParser;
+    private CursorConverter<Entity> converter;
+
+    private boolean hasNext;
+
+    /**
+     * @param database opened database, it will be closed together with iterator.
+     * @param tableInfo table whose canonical projection cursor has, null if projection is arbitrary.
+     */
+    CursorEntityIterator(Database database, Cursor cursor, CursorConverter<Entity> converter, TableInfo tableInfo) {
+        this.database = database;
+        this.cursor = cursor;
+        this.converter = converter;
+        this.cursorParser = new CursorParser(cursor, tableInfo);
+
+        hasNext = cursor.moveToFirst();
+        if (!hasNext) {
+            close();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public Entity next() {
+        if (!hasNext) {
+            throw new NoSuchElementException();
+        }
+
+        Entity entity = converter.toEntity(cursorParser);
+
+        hasNext = cursor.moveToNext();
+        if (!hasNext) {
+            close();
+        }
+
+        return entity;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Entities can't be removed through iterator");
+    }
+
+    @Override
+    public void close() {
+        hasNext = false;
+
+        if (cursor != null) {
+            cursorParser.releaseResources();
+            cursorParser = null;
+
+            cursor.close();
+            cursor = null;
+
+            database.close();
+            database = null;
+        }
+    }
+}
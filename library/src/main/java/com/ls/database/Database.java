@@ -23,68 +23,397 @@
  */
 package com.ls.database;
 
+import com.ls.database.model.CacheStats;
 import com.ls.database.model.ConflictType;
+import com.ls.database.model.TableChangeEvent;
+import com.ls.database.model.TableObserver;
+import com.ls.database.util.Logger;
 
+import android.annotation.TargetApi;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.text.TextUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
 public class Database {
 
+    /**
+     * Max count of compiled statements kept per connection.
+     */
+    public static final int STATEMENT_CACHE_SIZE = 25;
+
+    /**
+     * Max count of bind arguments SQLite accepts in one statement (SQLITE_MAX_VARIABLE_NUMBER).
+     */
+    public static final int MAX_BIND_ARGUMENTS = 999;
+
+    /**
+     * First version of SQLite which supports INSERT ... ON CONFLICT DO UPDATE.
+     */
+    private static final String UPSERT_SQLITE_VERSION = "3.24.0";
+
+    private static Logger logger = new Logger(Database.class.getSimpleName());
+
     private Context appContext;
 
-    private SQLiteDatabase sqLiteDatabase;
+    private volatile SQLiteDatabase sqLiteDatabase;
     private SQLiteOpenHelper sqLiteOpenHelper;
 
-    private AtomicInteger openCounter = new AtomicInteger(0);
+    /**
+     * Count of active {@link #open()} calls. Transitions 0 -> 1 and 1 -> 0 happen only while {@link #connectionLock}
+     * is held, so a positive value guarantees the connection is open and {@link #open()} / {@link #close()}
+     * can change the counter without locking.
+     */
+    private final AtomicInteger openCounter = new AtomicInteger(0);
+
+    /**
+     * Guards opening and closing of the connection, pending close and shutdown.
+     */
+    private final ReentrantLock connectionLock = new ReentrantLock();
+
+    private final AtomicLong lockContentionCounter = new AtomicLong(0);
+    private final AtomicLong lockWaitNanos = new AtomicLong(0);
+
+    private volatile boolean shutdown;
+
+    /**
+     * Whether SQLite library supports native upsert, null until detected.
+     */
+    private volatile Boolean nativeUpsertSupported;
+
+    /**
+     * Actions waiting for the end of outermost transaction of current thread.
+     */
+    private final ThreadLocal<List<Runnable>> transactionEndActions = new ThreadLocal<>();
+
+    /**
+     * Nesting and result of transaction of current thread.
+     */
+    private final ThreadLocal<TransactionState> transactionState = new ThreadLocal<>();
+
+    /**
+     * Tables written in the current transaction of current thread.
+     */
+    private final ThreadLocal<TableChanges> transactionChanges = new ThreadLocal<>();
+
+    private final List<ObserverEntry> tableObservers = new CopyOnWriteArrayList<>();
+
+    private final QueryCache queryCache;
+
+    private final StatementCache statementCache = new StatementCache(STATEMENT_CACHE_SIZE);
+
+    private final int readConnectionPoolSize;
+    private volatile ReadConnectionPool readConnectionPool;
+
+    private final long keepAliveMillis;
+    private final ScheduledExecutorService closeScheduler;
+    private ScheduledFuture<?> pendingClose;
+
+    private AtomicLong physicalOpenCounter = new AtomicLong(0);
+    private AtomicLong avoidedOpenCounter = new AtomicLong(0);
+
+    private final Runnable idleCloseTask = new Runnable() {
+
+        @Override
+        public void run() {
+            lockConnection();
+            try {
+                pendingClose = null;
+
+                if (openCounter.get() == 0) {
+                    closeConnection();
+                }
+            } finally {
+                connectionLock.unlock();
+            }
+        }
+    };
 
     Database(Context context, SQLiteOpenHelper sqLiteOpenHelper) {
+        this(context, sqLiteOpenHelper, 0, null, 0, 0);
+    }
+
+    /**
+     * @param keepAliveMillis time the connection stays open after the last {@link #close()},
+     * 0 closes the connection immediately.
+     * @param closeScheduler executor which closes idle connection, required if keepAliveMillis is greater than 0.
+     * @param readConnectionPoolSize count of read-only connections used for queries if database is in
+     * write-ahead logging mode, 0 to run queries on the writer connection.
+     * @param queryCacheSize max count of rows held by query result cache, 0 disables the cache.
+     */
+    Database(Context context, SQLiteOpenHelper sqLiteOpenHelper, long keepAliveMillis, ScheduledExecutorService closeScheduler,
+             int readConnectionPoolSize, int queryCacheSize) {
+        if (keepAliveMillis < 0) {
+            throw new IllegalArgumentException("Keep alive time can't be negative");
+        }
+
+        if (keepAliveMillis > 0 && closeScheduler == null) {
+            throw new IllegalArgumentException("Close scheduler is required for keep alive mode");
+        }
+
+        if (readConnectionPoolSize < 0) {
+            throw new IllegalArgumentException("Read connection pool size can't be negative");
+        }
+
+        if (queryCacheSize < 0) {
+            throw new IllegalArgumentException("Query cache size can't be negative");
+        }
+
         appContext = context.getApplicationContext();
         this.sqLiteOpenHelper = sqLiteOpenHelper;
+        this.keepAliveMillis = keepAliveMillis;
+        this.closeScheduler = closeScheduler;
+        this.readConnectionPoolSize = readConnectionPoolSize;
+        this.queryCache = queryCacheSize > 0 ? new QueryCache(queryCacheSize) : null;
     }
 
-    public synchronized void open() {
-        if (openCounter.incrementAndGet() == 1) {
-            sqLiteDatabase = sqLiteOpenHelper.getWritableDatabase();
+    public void open() {
+        if (incrementIfOpened()) {
+            return;
+        }
+
+        lockConnection();
+        try {
+            if (incrementIfOpened()) {
+                return;
+            }
+
+            cancelPendingClose();
+
+            if (sqLiteDatabase == null) {
+                //migrations run while opening, statements compiled before can't be reused
+                statementCache.clear();
+
+                sqLiteDatabase = sqLiteOpenHelper.getWritableDatabase();
+                physicalOpenCounter.incrementAndGet();
+
+                openReadConnectionPool();
+            } else {
+                avoidedOpenCounter.incrementAndGet();
+            }
+
+            //publish counter after connection is ready, lock-free callers rely on it
+            openCounter.set(1);
+        } finally {
+            connectionLock.unlock();
         }
     }
 
-    public synchronized void close() {
-        if (openCounter.decrementAndGet() == 0) {
-            if (sqLiteDatabase != null) {
-                sqLiteDatabase.close();
-                sqLiteDatabase = null;
+    public void close() {
+        if (decrementIfNotLast()) {
+            return;
+        }
+
+        lockConnection();
+        try {
+            //lock-free open() can still raise the counter here, so retry until one of the transitions succeeds
+            while (!openCounter.compareAndSet(1, 0)) {
+                if (decrementIfNotLast()) {
+                    return;
+                }
+
+                if (openCounter.get() <= 0) {
+                    logger.warning("Database is closed more times than opened");
+                    return;
+                }
+            }
+
+            if (keepAliveMillis > 0) {
+                cancelPendingClose();
+                pendingClose = closeScheduler.schedule(idleCloseTask, keepAliveMillis, TimeUnit.MILLISECONDS);
+            } else {
+                closeConnection();
             }
+        } finally {
+            connectionLock.unlock();
         }
     }
 
-    public synchronized boolean isOpened() {
+    public boolean isOpened() {
         return openCounter.get() > 0;
     }
 
+    /**
+     * @return count of {@link #open()} calls which are not closed yet.
+     */
+    int getOpenCount() {
+        return openCounter.get();
+    }
+
+    /**
+     * @return true while physical connection is open, including keep alive period after the last {@link #close()}.
+     */
+    boolean isConnectionOpened() {
+        return sqLiteDatabase != null;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    /**
+     * Returns how many times the underlying {@link SQLiteDatabase} was physically opened.
+     */
+    public long getPhysicalOpenCount() {
+        return physicalOpenCounter.get();
+    }
+
+    /**
+     * Returns how many times {@link #open()} reused a connection kept alive after the last {@link #close()}
+     * instead of opening database file again.
+     */
+    public long getAvoidedOpenCount() {
+        return avoidedOpenCounter.get();
+    }
+
+    /**
+     * Returns how many times {@link #open()}, {@link #close()} or idle close had to wait for another thread
+     * opening or closing the connection.
+     */
+    public long getLockContentionCount() {
+        return lockContentionCounter.get();
+    }
+
+    /**
+     * Returns total time in milliseconds threads waited for another thread opening or closing the connection.
+     */
+    public long getLockWaitTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lockWaitNanos.get());
+    }
+
     public void beginTransaction() {
         checkState();
 
         sqLiteDatabase.beginTransaction();
+
+        TransactionState state = transactionState.get();
+        if (state == null) {
+            state = new TransactionState();
+            transactionState.set(state);
+        }
+
+        state.depth++;
+        state.successfulLevels.clear(state.depth);
     }
 
     public void setTransactionSuccessful() {
         checkState();
 
         sqLiteDatabase.setTransactionSuccessful();
+
+        TransactionState state = transactionState.get();
+        if (state != null) {
+            state.successfulLevels.set(state.depth);
+        }
     }
 
     public void endTransaction() {
         checkState();
 
-        sqLiteDatabase.endTransaction();
+        TransactionState state = transactionState.get();
+        boolean ended = false;
+
+        try {
+            sqLiteDatabase.endTransaction();
+            ended = true;
+        } finally {
+            if (state != null) {
+                //transaction is rolled back if any of nested transactions is not successful, or if commit failed
+                if (!ended || !state.successfulLevels.get(state.depth)) {
+                    state.failed = true;
+                }
+                state.depth--;
+            }
+
+            //failed commit ends the transaction too, state of this thread must not leak into its next transaction
+            if (!sqLiteDatabase.inTransaction()) {
+                onOutermostTransactionEnded(state);
+            }
+        }
+    }
+
+    private void onOutermostTransactionEnded(TransactionState state) {
+        transactionState.remove();
+
+        //changes committed by yielding can't be rolled back
+        boolean committed = state == null || !state.failed || state.yielded;
+
+        TableChanges changes = transactionChanges.get();
+        transactionChanges.remove();
+
+        runTransactionEndActions();
+
+        if (changes != null) {
+            onTransactionTablesChanged(changes, committed);
+        }
+    }
+
+    /**
+     * Subscribes observer to changes of tables, it's notified once per committed transaction after commit.
+     *
+     * @param tables names of observed tables, all tables are observed if none is specified.
+     */
+    public void addTableObserver(TableObserver observer, String... tables) {
+        if (observer == null) {
+            throw new NullPointerException("Observer can't be null");
+        }
+
+        Set<String> observedTables = tables != null && tables.length > 0 ? new HashSet<>(Arrays.asList(tables)) : null;
+        tableObservers.add(new ObserverEntry(observer, observedTables));
+    }
+
+    public void removeTableObserver(TableObserver observer) {
+        for (ObserverEntry entry : tableObservers) {
+            if (entry.observer == observer) {
+                tableObservers.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Runs action after outermost transaction of current thread ends, no matter whether it was committed or rolled back.
+     * Action is run immediately if current thread is not in transaction.
+     */
+    void runAfterTransaction(Runnable action) {
+        if (sqLiteDatabase == null || !sqLiteDatabase.inTransaction()) {
+            action.run();
+            return;
+        }
+
+        List<Runnable> actions = transactionEndActions.get();
+
+        if (actions == null) {
+            actions = new ArrayList<>();
+            transactionEndActions.set(actions);
+        }
+
+        actions.add(action);
     }
 
     public boolean inTransaction() {
@@ -93,33 +422,210 @@ public class Database {
         return sqLiteDatabase.inTransaction();
     }
 
+    /**
+     * Temporarily ends the transaction to let other threads run if database is contended,
+     * transaction is committed and new one is started.
+     *
+     * @return true if the transaction was yielded.
+     */
+    public boolean yieldIfContendedSafely() {
+        checkState();
+
+        boolean yielded = sqLiteDatabase.yieldIfContendedSafely();
+
+        TransactionState state = transactionState.get();
+        if (yielded && state != null) {
+            state.yielded = true;
+        }
+
+        return yielded;
+    }
+
     public void execSQL(String sql) {
         checkState();
 
         sqLiteDatabase.execSQL(sql);
+
+        onSqlExecuted(sql);
+        onTableChanged(null);
     }
 
     public void execSQL(String sql, Object[] bindArgs) {
         checkState();
 
         sqLiteDatabase.execSQL(sql, bindArgs);
+
+        onSqlExecuted(sql);
+        onTableChanged(null);
     }
 
+    /**
+     * Inserts row using compiled statement from connection statement cache,
+     * statement is keyed by table, set of columns and conflict type.
+     *
+     * @return row ID of the newly inserted row, or -1 if an error occurred.
+     */
     public long insert(String table, String nullColumnHack, ContentValues initialValues, ConflictType type) {
+        return insert(table, nullColumnHack, initialValues, type, null);
+    }
+
+    /**
+     * @param changedKeys keys of inserted rows reported to table observers, null if they are unknown.
+     */
+    long insert(String table, String nullColumnHack, ContentValues initialValues, ConflictType type, Collection<?> changedKeys) {
         checkState();
 
-        return sqLiteDatabase.insertWithOnConflict(table, nullColumnHack, initialValues, type.getValue());
+        if (initialValues == null || initialValues.size() == 0) {
+            long id = sqLiteDatabase.insertWithOnConflict(table, nullColumnHack, initialValues, type.getValue());
+            onTableChanged(table, changedKeys);
+            return id;
+        }
+
+        try {
+            return insertOrThrow(table, initialValues, type, changedKeys);
+        } catch (SQLException e) {
+            logger.error("Error inserting " + initialValues, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Same as {@link #insert(String, String, ContentValues, ConflictType, Collection)} for non-empty values,
+     * but throws {@link SQLException} instead of returning -1.
+     *
+     * @return row ID of the newly inserted row, -1 if row was ignored by {@link ConflictType#CONFLICT_IGNORE}.
+     */
+    private long insertOrThrow(String table, ContentValues initialValues, ConflictType type, Collection<?> changedKeys) {
+        int size = initialValues.size();
+        Object[] bindArgs = new Object[size];
+
+        StringBuilder sql = new StringBuilder(32 + size * 16);
+        sql.append("INSERT").append(type.getSqlClause()).append(" INTO ").append(table).append('(');
+
+        int i = 0;
+        for (Map.Entry<String, Object> entry : initialValues.valueSet()) {
+            sql.append(i > 0 ? "," : "").append(entry.getKey());
+            bindArgs[i++] = entry.getValue();
+        }
+
+        sql.append(") VALUES (");
+        for (i = 0; i < size; i++) {
+            sql.append(i > 0 ? ",?" : "?");
+        }
+        sql.append(')');
+
+        try {
+            return runInsert(sql.toString(), bindArgs);
+        } finally {
+            onTableChanged(table, changedKeys);
+        }
+    }
+
+    /**
+     * Inserts entity binding its values directly into compiled statement from connection statement cache.
+     *
+     * @return row ID of the newly inserted row, or -1 if an error occurred.
+     */
+    public <T> long insert(String table, T entity, StatementBinder<T> binder, ConflictType type) {
+        return insert(table, entity, binder, type, null);
     }
 
+    /**
+     * @param changedKeys keys of inserted rows reported to table observers, null if they are unknown.
+     */
+    <T> long insert(String table, T entity, StatementBinder<T> binder, ConflictType type, Collection<?> changedKeys) {
+        checkState();
+
+        String sql = buildInsertSql(table, binder.getColumnNames(), type);
+
+        try {
+            SQLiteStatement statement = acquireStatement(sql);
+            try {
+                binder.bindValues(statement, entity);
+                return statement.executeInsert();
+            } finally {
+                statement.clearBindings();
+                statementCache.release(statement);
+            }
+        } catch (SQLException e) {
+            logger.error("Error inserting " + entity, e);
+            return -1;
+        } finally {
+            onTableChanged(table, changedKeys);
+        }
+    }
+
+    /**
+     * Updates rows using compiled statement from connection statement cache,
+     * statement is keyed by table, set of columns, where clause and conflict type.
+     *
+     * @return the number of rows affected.
+     */
     public int update(String table, ContentValues values, String whereClause, String[] whereArgs, ConflictType type) {
+        return update(table, values, whereClause, whereArgs, type, null);
+    }
+
+    /**
+     * @param changedKeys keys of updated rows reported to table observers, null if they are unknown.
+     */
+    int update(String table, ContentValues values, String whereClause, String[] whereArgs, ConflictType type,
+               Collection<?> changedKeys) {
         checkState();
 
-        return sqLiteDatabase.updateWithOnConflict(table, values, whereClause, whereArgs, type.getValue());
+        if (values == null || values.size() == 0 || Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            int rows = sqLiteDatabase.updateWithOnConflict(table, values, whereClause, whereArgs, type.getValue());
+            onTableChanged(table, changedKeys);
+            return rows;
+        }
+
+        int size = values.size();
+        int argsCount = whereArgs != null ? whereArgs.length : 0;
+        Object[] bindArgs = new Object[size + argsCount];
+
+        StringBuilder sql = new StringBuilder(32 + size * 16);
+        sql.append("UPDATE").append(type.getSqlClause()).append(' ').append(table).append(" SET ");
+
+        int i = 0;
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            sql.append(i > 0 ? "," : "").append(entry.getKey()).append("=?");
+            bindArgs[i++] = entry.getValue();
+        }
+
+        for (int j = 0; j < argsCount; j++) {
+            bindArgs[i++] = whereArgs[j];
+        }
+
+        if (!TextUtils.isEmpty(whereClause)) {
+            sql.append(" WHERE ").append(whereClause);
+        }
+
+        try {
+            return runUpdateDelete(sql.toString(), bindArgs);
+        } finally {
+            onTableChanged(table, changedKeys);
+        }
     }
 
+    /**
+     * Runs query on read-only connection if pool of read connections is enabled and
+     * current thread has no transaction, otherwise query runs on the writer connection.
+     * Query runs on the writer connection as well if all read connections are held by open cursors.
+     */
     public Cursor query(String table, String[] columns, String selection, String[] selectionArgs, String groupBy, String having, String orderBy, String limit) {
         checkState();
 
+        ReadConnectionPool pool = readConnectionPool;
+        SQLiteDatabase connection = pool != null && !sqLiteDatabase.inTransaction() ? pool.acquire() : null;
+        if (connection != null) {
+            try {
+                Cursor cursor = connection.query(table, columns, selection, selectionArgs, groupBy, having, orderBy, limit);
+                return pool.wrap(cursor, connection);
+            } catch (RuntimeException e) {
+                pool.release(connection);
+                throw e;
+            }
+        }
+
         return sqLiteDatabase.query(table, columns, selection, selectionArgs, groupBy, having, orderBy, limit);
     }
 
@@ -129,23 +635,662 @@ public class Database {
         return sqLiteDatabase.rawQuery(sql, selectionArgs);
     }
 
+    /**
+     * Deletes rows using compiled statement from connection statement cache,
+     * statement is keyed by table and where clause.
+     *
+     * @return the number of rows affected.
+     */
     public int delete(String table, String whereClause, String[] whereArgs) {
+        return delete(table, whereClause, whereArgs, null);
+    }
+
+    /**
+     * @param changedKeys keys of deleted rows reported to table observers, null if they are unknown.
+     */
+    int delete(String table, String whereClause, String[] whereArgs, Collection<?> changedKeys) {
         checkState();
 
-        return sqLiteDatabase.delete(table, whereClause, whereArgs);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            int rows = sqLiteDatabase.delete(table, whereClause, whereArgs);
+            onTableChanged(table, changedKeys);
+            return rows;
+        }
+
+        String sql = buildDeleteSql(table, whereClause);
+        try {
+            return runUpdateDelete(sql, whereArgs);
+        } finally {
+            onTableChanged(table, changedKeys);
+        }
+    }
+
+    /**
+     * Inserts row or updates non-key columns of existing row with the same key columns.
+     * Unlike {@link ConflictType#CONFLICT_REPLACE} existing row is not deleted, so indexes of unchanged columns
+     * are not rewritten and ON DELETE actions of foreign keys are not triggered.
+     * Uses INSERT ... ON CONFLICT DO UPDATE statement from connection statement cache if SQLite supports it,
+     * otherwise runs UPDATE and then INSERT if no row was updated, both in one transaction.
+     *
+     * Both ways throw {@link SQLException} if row violates a constraint other than conflict on key columns.
+     *
+     * @param keyColumns columns of primary key or unique index used as conflict target.
+     * @return the number of rows inserted or updated.
+     */
+    public int upsert(String table, ContentValues values, String[] keyColumns) {
+        return upsert(table, values, keyColumns, null);
+    }
+
+    /**
+     * @param changedKeys keys of written rows reported to table observers, null if they are unknown.
+     */
+    int upsert(String table, ContentValues values, String[] keyColumns, Collection<?> changedKeys) {
+        checkState();
+
+        if (keyColumns == null || keyColumns.length == 0) {
+            throw new IllegalArgumentException("Key columns can't be empty");
+        }
+
+        if (values == null || values.size() == 0) {
+            return 0;
+        }
+
+        if (isNativeUpsertSupported()) {
+            return runNativeUpsert(table, values, keyColumns, changedKeys);
+        } else {
+            return runUpdateThenInsert(table, values, keyColumns, changedKeys);
+        }
+    }
+
+    /**
+     * @return true if SQLite library supports INSERT ... ON CONFLICT DO UPDATE, i.e. its version is 3.24.0 or newer.
+     */
+    public boolean isNativeUpsertSupported() {
+        Boolean supported = nativeUpsertSupported;
+
+        if (supported == null) {
+            checkState();
+
+            Cursor cursor = sqLiteDatabase.rawQuery("SELECT sqlite_version()", null);
+            try {
+                supported = cursor.moveToFirst() && compareVersions(cursor.getString(0), UPSERT_SQLITE_VERSION) >= 0;
+            } finally {
+                cursor.close();
+            }
+
+            nativeUpsertSupported = supported;
+        }
+
+        return supported;
+    }
+
+    /**
+     * Overrides detection of native upsert support, null to detect it by SQLite version again.
+     * Allows to run update-then-insert fallback on devices with new SQLite.
+     */
+    void setNativeUpsertSupported(Boolean supported) {
+        nativeUpsertSupported = supported;
+    }
+
+    /**
+     * Executes compiled statement from connection statement cache once for every row, the statement is acquired
+     * once for the whole group. Table observers get one change with keys of all rows.
+     *
+     * @param insert true if statement is INSERT, rows which fail with {@link SQLException} get -1 result.
+     * @param changedKeys keys of changed rows reported to table observers, null if they are unknown.
+     * @return row IDs of inserted rows or numbers of rows affected by UPDATE or DELETE, in order of rows.
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    long[] executeGroup(String table, String sql, List<? extends RowBinder> rows, boolean insert,
+                        Collection<?> changedKeys) {
+        checkState();
+
+        long[] results = new long[rows.size()];
+
+        try {
+            SQLiteStatement statement = acquireStatement(sql);
+            try {
+                for (int i = 0; i < results.length; i++) {
+                    try {
+                        rows.get(i).bindRow(statement);
+                        results[i] = insert ? executeInsertRow(statement, table) : statement.executeUpdateDelete();
+                    } finally {
+                        statement.clearBindings();
+                    }
+                }
+            } finally {
+                statementCache.release(statement);
+            }
+        } finally {
+            onTableChanged(table, changedKeys);
+        }
+
+        return results;
+    }
+
+    /**
+     * Executes INSERT statement using compiled statement cache.
+     *
+     * @return row ID of the last inserted row.
+     */
+    public long executeInsert(String sql, Object[] bindArgs) {
+        checkState();
+
+        try {
+            return runInsert(sql, bindArgs);
+        } finally {
+            onTableChanged(null);
+        }
+    }
+
+    /**
+     * Executes UPDATE or DELETE statement using compiled statement cache.
+     * Before Honeycomb number of affected rows is read by SELECT changes() after the statement.
+     *
+     * @return the number of rows affected.
+     */
+    public int executeUpdateDelete(String sql, Object[] bindArgs) {
+        checkState();
+
+        try {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+                return runUpdateDeleteCompat(sql, bindArgs);
+            }
+
+            return runUpdateDelete(sql, bindArgs);
+        } finally {
+            onTableChanged(null);
+        }
+    }
+
+    /**
+     * Releases all compiled statements of current connection.
+     * Has to be called after changing of database schema outside of {@link #execSQL(String)}.
+     */
+    public void invalidateStatementCache() {
+        statementCache.clear();
+    }
+
+    /**
+     * @return statistics of query result cache, weighted by rows, or null if the cache is disabled.
+     */
+    public CacheStats getQueryCacheStats() {
+        return queryCache != null ? queryCache.getStats() : null;
+    }
+
+    /**
+     * @return cache of query results or null if it's disabled.
+     */
+    QueryCache getQueryCache() {
+        return queryCache;
     }
 
     public String getResourceQuery(int resId) {
         return appContext.getString(resId);
     }
 
-    synchronized void shutdown() {
-        openCounter.set(0);
+    /**
+     * @return true if this instance was released by {@link DatabaseRegister#shutdownAndClear()} and must not be used anymore.
+     */
+    boolean isShutdown() {
+        return shutdown;
+    }
+
+    void shutdown() {
+        lockConnection();
+        try {
+            shutdown = true;
+
+            cancelPendingClose();
+
+            statementCache.clear();
+            closeReadConnectionPool();
+
+            openCounter.set(0);
+
+            sqLiteDatabase = null;
+
+            sqLiteOpenHelper.close();
+            sqLiteOpenHelper = null;
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void onTableChanged(String table) {
+        onTableChanged(table, null);
+    }
+
+    /**
+     * Called after each write. Tables written in transaction are collected and processed once more
+     * when the transaction ends, observers are notified after commit.
+     *
+     * @param table changed table, null if it's unknown.
+     * @param keys keys of changed rows, null if they are unknown.
+     */
+    private void onTableChanged(String table, Collection<?> keys) {
+        if (queryCache != null) {
+            queryCache.invalidate(table);
+        }
+
+        if (sqLiteDatabase.inTransaction()) {
+            TableChanges changes = transactionChanges.get();
+
+            if (changes == null) {
+                changes = new TableChanges();
+                transactionChanges.set(changes);
+            }
+
+            changes.add(table, keys);
+        } else if (!tableObservers.isEmpty()) {
+            TableChanges changes = new TableChanges();
+            changes.add(table, keys);
+
+            notifyTableObservers(changes);
+        }
+    }
+
+    private void onTransactionTablesChanged(TableChanges changes, boolean committed) {
+        if (queryCache != null) {
+            //other threads could cache state outdated by this transaction while it was running
+            if (changes.hasUnknownTables()) {
+                queryCache.invalidate(null);
+            }
+
+            for (String table : changes.getTables()) {
+                queryCache.invalidate(table);
+            }
+        }
+
+        if (committed) {
+            notifyTableObservers(changes);
+        }
+    }
+
+    private void notifyTableObservers(TableChanges changes) {
+        TableChangeEvent event = null;
+
+        for (ObserverEntry entry : tableObservers) {
+            if (entry.isInterested(changes)) {
+                if (event == null) {
+                    event = changes.toEvent();
+                }
+
+                try {
+                    entry.observer.onTablesChanged(event);
+                } catch (RuntimeException e) {
+                    logger.error("Table observer failed", e);
+                }
+            }
+        }
+    }
+
+    private void runTransactionEndActions() {
+        List<Runnable> actions = transactionEndActions.get();
+
+        if (actions != null) {
+            transactionEndActions.remove();
+
+            for (Runnable action : actions) {
+                action.run();
+            }
+        }
+    }
+
+    private boolean incrementIfOpened() {
+        while (true) {
+            int count = openCounter.get();
+
+            if (count <= 0) {
+                return false;
+            }
+
+            if (openCounter.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean decrementIfNotLast() {
+        while (true) {
+            int count = openCounter.get();
+
+            if (count <= 1) {
+                return false;
+            }
+
+            if (openCounter.compareAndSet(count, count - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void lockConnection() {
+        if (connectionLock.tryLock()) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        connectionLock.lock();
+
+        lockContentionCounter.incrementAndGet();
+        lockWaitNanos.addAndGet(System.nanoTime() - startNanos);
+    }
+
+    private void cancelPendingClose() {
+        if (pendingClose != null) {
+            pendingClose.cancel(false);
+            pendingClose = null;
+        }
+    }
+
+    private long runInsert(String sql, Object[] bindArgs) {
+        SQLiteStatement statement = acquireStatement(sql);
+        try {
+            bindArguments(statement, bindArgs);
+            return statement.executeInsert();
+        } finally {
+            statement.clearBindings();
+            statementCache.release(statement);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private int runUpdateDelete(String sql, Object[] bindArgs) {
+        SQLiteStatement statement = acquireStatement(sql);
+        try {
+            bindArguments(statement, bindArgs);
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.clearBindings();
+            statementCache.release(statement);
+        }
+    }
+
+    /**
+     * Runs statement and reads changes() of the same connection. Both run in one transaction,
+     * so statement of another thread can't change the count in between.
+     */
+    int runUpdateDeleteCompat(String sql, Object[] bindArgs) {
+        boolean ownTransaction = !sqLiteDatabase.inTransaction();
+        if (ownTransaction) {
+            sqLiteDatabase.beginTransaction();
+        }
+
+        try {
+            SQLiteStatement statement = acquireStatement(sql);
+            try {
+                bindArguments(statement, bindArgs);
+                statement.execute();
+            } finally {
+                statement.clearBindings();
+                statementCache.release(statement);
+            }
+
+            int rows;
+            SQLiteStatement changes = acquireStatement("SELECT changes()");
+            try {
+                rows = (int) changes.simpleQueryForLong();
+            } finally {
+                statementCache.release(changes);
+            }
+
+            if (ownTransaction) {
+                sqLiteDatabase.setTransactionSuccessful();
+            }
+
+            return rows;
+        } finally {
+            if (ownTransaction) {
+                sqLiteDatabase.endTransaction();
+            }
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private int runNativeUpsert(String table, ContentValues values, String[] keyColumns, Collection<?> changedKeys) {
+        int size = values.size();
+        Object[] bindArgs = new Object[size];
+
+        StringBuilder sql = new StringBuilder(64 + size * 32);
+        StringBuilder updateClause = new StringBuilder(size * 24);
+        sql.append("INSERT INTO ").append(table).append('(');
+
+        int i = 0;
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            String column = entry.getKey();
+            sql.append(i > 0 ? "," : "").append(column);
+            bindArgs[i++] = entry.getValue();
+
+            if (!contains(keyColumns, column)) {
+                updateClause.append(updateClause.length() > 0 ? "," : "")
+                        .append(column).append("=excluded.").append(column);
+            }
+        }
+
+        sql.append(") VALUES (");
+        for (i = 0; i < size; i++) {
+            sql.append(i > 0 ? ",?" : "?");
+        }
+
+        sql.append(") ON CONFLICT(").append(TextUtils.join(",", keyColumns)).append(')');
+        if (updateClause.length() > 0) {
+            sql.append(" DO UPDATE SET ").append(updateClause);
+        } else {
+            sql.append(" DO NOTHING");
+        }
+
+        try {
+            return runUpdateDelete(sql.toString(), bindArgs);
+        } finally {
+            onTableChanged(table, changedKeys);
+        }
+    }
+
+    private int runUpdateThenInsert(String table, ContentValues values, String[] keyColumns, Collection<?> changedKeys) {
+        ContentValues updateValues = new ContentValues(values);
+        String[] whereArgs = new String[keyColumns.length];
+        StringBuilder whereClause = new StringBuilder(keyColumns.length * 16);
+
+        boolean hasKey = true;
+        for (int i = 0; i < keyColumns.length; i++) {
+            Object keyValue = values.get(keyColumns[i]);
+            if (keyValue == null) {
+                //row without key value can't conflict with existing one
+                hasKey = false;
+                break;
+            }
+
+            updateValues.remove(keyColumns[i]);
+            whereClause.append(i > 0 ? " AND " : "").append(keyColumns[i]).append("=?");
+            whereArgs[i] = keyValue.toString();
+        }
+
+        if (!hasKey) {
+            insertOrThrow(table, values, ConflictType.CONFLICT_NONE, changedKeys);
+            return 1;
+        }
+
+        if (updateValues.size() == 0) {
+            //like DO NOTHING of native upsert, existing row is not counted
+            return insertOrThrow(table, values, ConflictType.CONFLICT_IGNORE, changedKeys) != -1 ? 1 : 0;
+        }
+
+        int rows;
+
+        beginTransaction();
+        try {
+            rows = update(table, updateValues, whereClause.toString(), whereArgs, ConflictType.CONFLICT_NONE, changedKeys);
+
+            if (rows == 0) {
+                insertOrThrow(table, values, ConflictType.CONFLICT_NONE, changedKeys);
+                rows = 1;
+            }
+
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+
+        return rows;
+    }
+
+    private static boolean contains(String[] columns, String column) {
+        for (String item : columns) {
+            if (item.equalsIgnoreCase(column)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Compares dot separated versions like "3.24.0" number by number.
+     */
+    private static int compareVersions(String version, String otherVersion) {
+        String[] parts = version.split("\\.");
+        String[] otherParts = otherVersion.split("\\.");
+
+        for (int i = 0; i < Math.max(parts.length, otherParts.length); i++) {
+            int part = i < parts.length ? parseVersionPart(parts[i]) : 0;
+            int otherPart = i < otherParts.length ? parseVersionPart(otherParts[i]) : 0;
+
+            if (part != otherPart) {
+                return part < otherPart ? -1 : 1;
+            }
+        }
+
+        return 0;
+    }
+
+    private static int parseVersionPart(String part) {
+        try {
+            return Integer.parseInt(part.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long executeInsertRow(SQLiteStatement statement, String table) {
+        try {
+            return statement.executeInsert();
+        } catch (SQLException e) {
+            logger.error("Error inserting row into " + table, e);
+            return -1;
+        }
+    }
+
+    static String buildInsertSql(String table, String[] columns, ConflictType type) {
+        StringBuilder sql = new StringBuilder(32 + columns.length * 16);
+        sql.append("INSERT").append(type.getSqlClause()).append(" INTO ").append(table).append('(')
+                .append(TextUtils.join(",", columns))
+                .append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i > 0 ? ",?" : "?");
+        }
+
+        return sql.append(')').toString();
+    }
+
+    static String buildUpdateSql(String table, String[] columns, String whereClause, ConflictType type) {
+        StringBuilder sql = new StringBuilder(32 + columns.length * 16);
+        sql.append("UPDATE").append(type.getSqlClause()).append(' ').append(table).append(" SET ");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i > 0 ? "," : "").append(columns[i]).append("=?");
+        }
+
+        if (!TextUtils.isEmpty(whereClause)) {
+            sql.append(" WHERE ").append(whereClause);
+        }
+
+        return sql.toString();
+    }
+
+    static String buildDeleteSql(String table, String whereClause) {
+        return "DELETE FROM " + table + (!TextUtils.isEmpty(whereClause) ? " WHERE " + whereClause : "");
+    }
+
+    /**
+     * Returns statement for exclusive usage, it has to be returned by {@link StatementCache#release(SQLiteStatement)}.
+     * Statement which is busy in another thread, e.g. one waiting for connection held by transaction of this thread,
+     * is not waited for: one-off statement is compiled instead.
+     */
+    private SQLiteStatement acquireStatement(String sql) {
+        SQLiteStatement statement = statementCache.acquire(sql);
+
+        if (statement == null) {
+            statement = statementCache.putAndAcquire(sql, sqLiteDatabase.compileStatement(sql));
+        }
+
+        return statement;
+    }
+
+    private void bindArguments(SQLiteStatement statement, Object[] bindArgs) {
+        if (bindArgs != null) {
+            for (int i = 0; i < bindArgs.length; i++) {
+                DatabaseUtils.bindObjectToProgram(statement, i + 1, bindArgs[i]);
+            }
+        }
+    }
+
+    private void onSqlExecuted(String sql) {
+        if (isSchemaStatement(sql)) {
+            invalidateStatementCache();
+        }
+    }
+
+    private static boolean isSchemaStatement(String sql) {
+        String prefix = sql.trim();
+        prefix = prefix.substring(0, Math.min(prefix.length(), 6)).toUpperCase(Locale.US);
+
+        return prefix.startsWith("CREATE") || prefix.startsWith("DROP") || prefix.startsWith("ALTER");
+    }
+
+    /**
+     * Read-only connections see committed data concurrently with writer only in write-ahead logging mode.
+     */
+    private void openReadConnectionPool() {
+        if (readConnectionPoolSize > 0 && isWriteAheadLoggingEnabled()) {
+            DatabaseTuning tuning = sqLiteOpenHelper instanceof BaseSQLiteOpenHelper
+                    ? ((BaseSQLiteOpenHelper) sqLiteOpenHelper).getTuning() : null;
+            readConnectionPool = new ReadConnectionPool(sqLiteDatabase.getPath(), readConnectionPoolSize, tuning);
+        }
+    }
+
+    /**
+     * @return pool of read connections or null if it's disabled or database is not opened.
+     */
+    ReadConnectionPool getReadConnectionPool() {
+        return readConnectionPool;
+    }
 
-        sqLiteDatabase = null;
+    private void closeReadConnectionPool() {
+        ReadConnectionPool pool = readConnectionPool;
+        readConnectionPool = null;
 
-        sqLiteOpenHelper.close();
-        sqLiteOpenHelper = null;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private boolean isWriteAheadLoggingEnabled() {
+        Cursor cursor = sqLiteDatabase.rawQuery("PRAGMA journal_mode", null);
+        try {
+            return cursor.moveToFirst() && "wal".equalsIgnoreCase(cursor.getString(0));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void closeConnection() {
+        statementCache.clear();
+        closeReadConnectionPool();
+
+        if (sqLiteDatabase != null) {
+            sqLiteDatabase.close();
+            sqLiteDatabase = null;
+        }
     }
 
     private void checkState() {
@@ -153,4 +1298,45 @@ public class Database {
             throw new IllegalStateException("Database is already closed");
         }
     }
+
+    /**
+     * Binds arguments of one row executed by {@link #executeGroup(String, String, List, boolean, Collection)}.
+     */
+    interface RowBinder {
+
+        void bindRow(SQLiteStatement statement);
+    }
+
+    private static class TransactionState {
+
+        private final BitSet successfulLevels = new BitSet();
+        private int depth;
+        private boolean failed;
+        private boolean yielded;
+    }
+
+    private static class ObserverEntry {
+
+        private final TableObserver observer;
+        private final Set<String> tables;
+
+        ObserverEntry(TableObserver observer, Set<String> tables) {
+            this.observer = observer;
+            this.tables = tables;
+        }
+
+        boolean isInterested(TableChanges changes) {
+            if (tables == null || changes.hasUnknownTables()) {
+                return true;
+            }
+
+            for (String table : changes.getTables()) {
+                if (tables.contains(table)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
 }
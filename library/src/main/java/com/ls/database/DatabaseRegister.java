@@ -23,11 +23,18 @@
  */
 package com.ls.database;
 
+import com.ls.database.model.TableObserver;
+
 import android.content.Context;
 import android.text.TextUtils;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
@@ -35,22 +42,39 @@ import java.util.Map;
 public class DatabaseRegister {
 
     private Context mContext;
-    private Map<String, Database> mDatabaseMap;
+    private final ConcurrentMap<String, Database> mDatabaseMap;
+    private ScheduledExecutorService mCloseScheduler;
 
     /**
      * Make sure that you create only one instance of {@link DatabaseRegister} in your system to prevent issues related to database working.
      */
     public DatabaseRegister(Context context) {
         mContext = context.getApplicationContext();
-        mDatabaseMap = new HashMap<>();
+        mDatabaseMap = new ConcurrentHashMap<>();
     }
 
-    public void shutdownAndClear() {
-        for (Database database : mDatabaseMap.values()) {
+    /**
+     * Shuts down all registered databases. DAOs holding a reference to a shut down database
+     * look it up again on the next call, so databases can be re-added after this method.
+     */
+    public synchronized void shutdownAndClear() {
+        //remove databases from the map first, so concurrent lookups can't get one which is being shut down
+        List<Database> databases = new ArrayList<>();
+        for (String databaseName : mDatabaseMap.keySet()) {
+            Database database = mDatabaseMap.remove(databaseName);
+            if (database != null) {
+                databases.add(database);
+            }
+        }
+
+        for (Database database : databases) {
             database.shutdown();
         }
 
-        mDatabaseMap.clear();
+        if (mCloseScheduler != null) {
+            mCloseScheduler.shutdownNow();
+            mCloseScheduler = null;
+        }
     }
 
     /**
@@ -58,12 +82,65 @@ public class DatabaseRegister {
      * {@link MigratableSQLiteOpenHelper} helps to manage data migration while database upgrading or downgrading.
      */
     public void addDatabase(BaseSQLiteOpenHelper sqLiteOpenHelper) {
+        addDatabase(sqLiteOpenHelper, 0);
+    }
+
+    /**
+     * @param sqLiteOpenHelper A sqLiteOpenHelper class to manage database creation and version management.
+     * @param keepAliveMillis Time in milliseconds the database connection stays open after the last
+     * {@link Database#close()}. Calls of {@link Database#open()} within this period reuse the connection
+     * instead of reopening database file. 0 closes the connection immediately.
+     */
+    public void addDatabase(BaseSQLiteOpenHelper sqLiteOpenHelper, long keepAliveMillis) {
+        addDatabase(sqLiteOpenHelper, keepAliveMillis, sqLiteOpenHelper.getTuning());
+    }
+
+    /**
+     * @param sqLiteOpenHelper A sqLiteOpenHelper class to manage database creation and version management.
+     * @param tuning Connection tuning applied every time database is opened,
+     * e.g. {@link DatabaseTuning#readHeavy()}, null to keep defaults.
+     */
+    public void addDatabase(BaseSQLiteOpenHelper sqLiteOpenHelper, DatabaseTuning tuning) {
+        addDatabase(sqLiteOpenHelper, 0, tuning);
+    }
+
+    /**
+     * @param sqLiteOpenHelper A sqLiteOpenHelper class to manage database creation and version management.
+     * @param keepAliveMillis Time in milliseconds the database connection stays open after the last {@link Database#close()}.
+     * @param tuning Connection tuning applied every time database is opened, null to keep defaults.
+     */
+    public synchronized void addDatabase(BaseSQLiteOpenHelper sqLiteOpenHelper, long keepAliveMillis, DatabaseTuning tuning) {
         if (!mDatabaseMap.containsKey(sqLiteOpenHelper.getDbName())) {
-            Database database = new Database(mContext, sqLiteOpenHelper);
-            mDatabaseMap.put(sqLiteOpenHelper.getDbName(), database);
+            sqLiteOpenHelper.setTuning(tuning);
+
+            ScheduledExecutorService closeScheduler = keepAliveMillis > 0 ? getCloseScheduler() : null;
+
+            int readConnectionPoolSize = tuning != null ? tuning.getReadConnectionPoolSize() : 0;
+            int queryCacheSize = tuning != null ? tuning.getQueryCacheSize() : 0;
+
+            Database database = new Database(mContext, sqLiteOpenHelper, keepAliveMillis, closeScheduler,
+                    readConnectionPoolSize, queryCacheSize);
+            mDatabaseMap.putIfAbsent(sqLiteOpenHelper.getDbName(), database);
         }
     }
 
+    /**
+     * Subscribes observer to changes of tables of database, it's notified once per committed transaction after commit.
+     * Observers are removed by {@link #shutdownAndClear()}.
+     *
+     * @param tables names of observed tables, all tables are observed if none is specified.
+     */
+    public void addTableObserver(String databaseName, TableObserver observer, String... tables) {
+        getDatabase(databaseName).addTableObserver(observer, tables);
+    }
+
+    public void removeTableObserver(String databaseName, TableObserver observer) {
+        getDatabase(databaseName).removeTableObserver(observer);
+    }
+
+    /**
+     * Lookups are lock-free, registration and shutdown are serialized with each other.
+     */
     Database getDatabase(String databaseName) {
         if (TextUtils.isEmpty(databaseName)) {
             throw new IllegalArgumentException("Database name is not specified");
@@ -77,4 +154,20 @@ public class DatabaseRegister {
 
         return database;
     }
+
+    private synchronized ScheduledExecutorService getCloseScheduler() {
+        if (mCloseScheduler == null) {
+            mCloseScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "DatabaseCloseScheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return mCloseScheduler;
+    }
 }
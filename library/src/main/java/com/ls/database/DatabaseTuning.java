@@ -0,0 +1,264 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import android.annotation.TargetApi;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import java.util.Locale;
+
+/**
+ * Declarative connection tuning which is applied by {@link BaseSQLiteOpenHelper} every time database is opened.
+ * Null values keep SQLite or Android defaults.
+ * <p/>
+ * Journal mode, synchronous and page size belong to the database file and affect all connections.
+ * Cache size, temp store and mmap size are kept per connection: they are applied to the connection which is
+ * configured by the helper and to connections of the read pool, see {@link #setReadConnectionPoolSize(int)}.
+ * Secondary connections which Android opens by itself in {@link JournalMode#WAL} mode can't be configured
+ * and keep SQLite defaults, so queries which need these pragmas should use the read pool.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class DatabaseTuning {
+
+    public enum JournalMode {
+        DELETE, TRUNCATE, PERSIST, MEMORY, WAL, OFF
+    }
+
+    public enum Synchronous {
+        OFF, NORMAL, FULL
+    }
+
+    public enum TempStore {
+        DEFAULT, FILE, MEMORY
+    }
+
+    private JournalMode journalMode;
+    private Synchronous synchronous;
+    private Integer cacheSize;
+    private Integer pageSize;
+    private TempStore tempStore;
+    private Long mmapSize;
+    private int readConnectionPoolSize;
+    private int queryCacheSize;
+
+    /**
+     * Many concurrent readers: write-ahead log, large page cache and memory mapped I/O.
+     */
+    public static DatabaseTuning readHeavy() {
+        DatabaseTuning tuning = new DatabaseTuning();
+        tuning.setJournalMode(JournalMode.WAL);
+        tuning.setSynchronous(Synchronous.NORMAL);
+        tuning.setCacheSize(-8 * 1024);
+        tuning.setTempStore(TempStore.MEMORY);
+        tuning.setMmapSize(64L * 1024 * 1024);
+        tuning.setReadConnectionPoolSize(Math.min(4, Runtime.getRuntime().availableProcessors()));
+        return tuning;
+    }
+
+    /**
+     * Frequent writes: write-ahead log without fsync on every commit.
+     */
+    public static DatabaseTuning writeHeavy() {
+        DatabaseTuning tuning = new DatabaseTuning();
+        tuning.setJournalMode(JournalMode.WAL);
+        tuning.setSynchronous(Synchronous.NORMAL);
+        tuning.setCacheSize(-4 * 1024);
+        tuning.setTempStore(TempStore.MEMORY);
+        tuning.setReadConnectionPoolSize(2);
+        return tuning;
+    }
+
+    /**
+     * Constrained devices: small page cache, temporary tables on disk, no memory mapped I/O.
+     */
+    public static DatabaseTuning lowMemory() {
+        DatabaseTuning tuning = new DatabaseTuning();
+        tuning.setCacheSize(-512);
+        tuning.setTempStore(TempStore.FILE);
+        tuning.setMmapSize(0L);
+        return tuning;
+    }
+
+    public JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    /**
+     * {@link JournalMode#WAL} is enabled through {@link SQLiteDatabase#enableWriteAheadLogging()},
+     * it requires API 11, on older versions default journal mode is used.
+     */
+    public void setJournalMode(JournalMode journalMode) {
+        this.journalMode = journalMode;
+    }
+
+    public Synchronous getSynchronous() {
+        return synchronous;
+    }
+
+    public void setSynchronous(Synchronous synchronous) {
+        this.synchronous = synchronous;
+    }
+
+    public Integer getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @param cacheSize positive value is count of pages, negative value is size in KiB.
+     */
+    public void setCacheSize(Integer cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Page size takes effect only for new database, before the first table is created.
+     */
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public TempStore getTempStore() {
+        return tempStore;
+    }
+
+    public void setTempStore(TempStore tempStore) {
+        this.tempStore = tempStore;
+    }
+
+    public Long getMmapSize() {
+        return mmapSize;
+    }
+
+    /**
+     * @param mmapSize max size of memory mapped I/O in bytes, 0 disables it. Ignored by SQLite older than 3.7.17.
+     */
+    public void setMmapSize(Long mmapSize) {
+        this.mmapSize = mmapSize;
+    }
+
+    public int getReadConnectionPoolSize() {
+        return readConnectionPoolSize;
+    }
+
+    /**
+     * @param readConnectionPoolSize count of read-only connections used by {@link Database#query} outside of transactions,
+     * pool is used only in {@link JournalMode#WAL} mode. 0 runs all queries on the writer connection.
+     */
+    public void setReadConnectionPoolSize(int readConnectionPoolSize) {
+        if (readConnectionPoolSize < 0) {
+            throw new IllegalArgumentException("Pool size can't be negative");
+        }
+
+        this.readConnectionPoolSize = readConnectionPoolSize;
+    }
+
+    public int getQueryCacheSize() {
+        return queryCacheSize;
+    }
+
+    /**
+     * @param queryCacheSize memory budget of query result cache of {@link BaseDAO} selects and row counts,
+     * expressed in count of cached rows. 0 disables the cache.
+     */
+    public void setQueryCacheSize(int queryCacheSize) {
+        if (queryCacheSize < 0) {
+            throw new IllegalArgumentException("Query cache size can't be negative");
+        }
+
+        this.queryCacheSize = queryCacheSize;
+    }
+
+    /**
+     * Applies tuning to connection, has to be called outside of transaction.
+     */
+    void apply(SQLiteDatabase db) {
+        if (pageSize != null) {
+            executePragma(db, "page_size", String.valueOf(pageSize));
+        }
+
+        if (journalMode != null) {
+            applyJournalMode(db);
+        }
+
+        if (synchronous != null) {
+            executePragma(db, "synchronous", synchronous.name());
+        }
+
+        applyToConnection(db);
+    }
+
+    /**
+     * Applies pragmas which are kept per connection, also used for read-only connections of
+     * {@link ReadConnectionPool}. Pragmas of database file and of writes are applied by writer connection only.
+     */
+    void applyToConnection(SQLiteDatabase db) {
+        if (cacheSize != null) {
+            executePragma(db, "cache_size", String.valueOf(cacheSize));
+        }
+
+        if (tempStore != null) {
+            executePragma(db, "temp_store", tempStore.name());
+        }
+
+        if (mmapSize != null) {
+            executePragma(db, "mmap_size", String.valueOf(mmapSize));
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void applyJournalMode(SQLiteDatabase db) {
+        if (journalMode == JournalMode.WAL) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+                //Android has to know about WAL to use pool of connections
+                db.enableWriteAheadLogging();
+            }
+        } else {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN && db.isWriteAheadLoggingEnabled()) {
+                db.disableWriteAheadLogging();
+            }
+
+            executePragma(db, "journal_mode", journalMode.name());
+        }
+    }
+
+    /**
+     * Some pragmas return result row which is not allowed by {@link SQLiteDatabase#execSQL(String)},
+     * so all of them are executed as queries.
+     */
+    private static void executePragma(SQLiteDatabase db, String name, String value) {
+        Cursor cursor = db.rawQuery("PRAGMA " + name + "=" + value.toUpperCase(Locale.US), null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import android.content.ContentValues;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU store of column values last loaded or written by DAO for each key, allows to write only changed columns.
+ * Every change increments version, snapshots taken before the change are not stored,
+ * so store never keeps values older than ones in database.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+class DirtyTracker<Key> {
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, ContentValues> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long version;
+
+    DirtyTracker(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Count of snapshots has to be greater than 0");
+        }
+
+        this.maxSize = maxSize;
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    synchronized ContentValues get(Key key) {
+        return snapshots.get(key);
+    }
+
+    /**
+     * Stores loaded values if nothing was changed since version was taken.
+     */
+    synchronized void putIfUnchanged(Key key, ContentValues values, long expectedVersion) {
+        if (version == expectedVersion) {
+            snapshots.put(key, values);
+            trimToSize();
+        }
+    }
+
+    /**
+     * Stores written values if nothing else was changed since version was taken before the write,
+     * otherwise drops snapshot of the key.
+     */
+    synchronized void onWritten(Key key, ContentValues values, long expectedVersion) {
+        if (version == expectedVersion) {
+            snapshots.put(key, values);
+            trimToSize();
+        } else {
+            snapshots.remove(key);
+        }
+
+        version++;
+    }
+
+    /**
+     * @param key key to drop, null drops all snapshots.
+     */
+    synchronized void remove(Key key) {
+        if (key != null) {
+            snapshots.remove(key);
+        } else {
+            snapshots.clear();
+        }
+
+        version++;
+    }
+
+    synchronized int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * @return values which differ from snapshot, all values if snapshot is null.
+     */
+    static ContentValues diff(ContentValues snapshot, ContentValues values) {
+        if (snapshot == null) {
+            return values;
+        }
+
+        ContentValues changedValues = new ContentValues(values);
+
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            String column = entry.getKey();
+
+            if (snapshot.containsKey(column) && isEqual(snapshot.get(column), entry.getValue())) {
+                changedValues.remove(column);
+            }
+        }
+
+        return changedValues;
+    }
+
+    private static boolean isEqual(Object value, Object otherValue) {
+        if (value instanceof byte[] && otherValue instanceof byte[]) {
+            return Arrays.equals((byte[]) value, (byte[]) otherValue);
+        }
+
+        return value == null ? otherValue == null : value.equals(otherValue);
+    }
+
+    private void trimToSize() {
+        Iterator<Key> iterator = snapshots.keySet().iterator();
+
+        while (snapshots.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
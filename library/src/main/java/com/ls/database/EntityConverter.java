@@ -29,9 +29,10 @@ import com.ls.database.model.CursorParser;
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
-public interface EntityConverter<Entity> {
+public interface EntityConverter<Entity> extends CursorConverter<Entity> {
 
 	ContentValues toContentValues(Entity entity);
 
+	@Override
 	Entity toEntity(CursorParser parser);
 }
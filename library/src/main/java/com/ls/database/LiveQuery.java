@@ -0,0 +1,277 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.model.LiveQueryListener;
+import com.ls.database.model.QueryDelta;
+import com.ls.database.model.SearchCondition;
+import com.ls.database.model.TableChangeEvent;
+import com.ls.database.model.TableObserver;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query of {@link BaseDAO} which is re-executed in background when its table is changed and delivers
+ * difference with the previous result to {@link LiveQueryListener} on the main thread.
+ * Changes are debounced, query runs once for a burst of transactions.
+ * <p/>
+ * Entities are matched by {@link BaseDAO#getEntityKey(Object)} and compared by {@link Object#equals(Object)}.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class LiveQuery<Key, Entity> {
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 50;
+
+    private static ScheduledExecutorService sExecutor;
+
+    private final BaseDAO<Key, Entity> mDao;
+    private final SearchCondition mCondition;
+    private final String mOrderBy;
+    private final long mDebounceMillis;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private LiveQueryListener<Key, Entity> mListener;
+    private volatile boolean mActive;
+    private ScheduledFuture<?> mPendingRefresh;
+
+    /**
+     * Previous result, accessed only by refresh task.
+     */
+    private Map<Key, Entity> mLastResult;
+
+    /**
+     * Set by {@link #start(LiveQueryListener)}, restarted query delivers the whole result again.
+     */
+    private volatile boolean mResetResult;
+
+    private final TableObserver mTableObserver = new TableObserver() {
+
+        @Override
+        public void onTablesChanged(TableChangeEvent event) {
+            scheduleRefresh(mDebounceMillis);
+        }
+    };
+
+    private final Runnable mRefreshTask = new Runnable() {
+
+        @Override
+        public void run() {
+            synchronized (LiveQuery.this) {
+                mPendingRefresh = null;
+            }
+
+            refresh();
+        }
+    };
+
+    LiveQuery(BaseDAO<Key, Entity> dao, SearchCondition condition, String orderBy, long debounceMillis) {
+        if (condition == null) {
+            throw new NullPointerException("Condition can't be null");
+        }
+
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("Debounce time can't be negative");
+        }
+
+        mDao = dao;
+        mCondition = condition;
+        mOrderBy = orderBy;
+        mDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * Runs query and starts observing its table.
+     */
+    public synchronized void start(LiveQueryListener<Key, Entity> listener) {
+        if (listener == null) {
+            throw new NullPointerException("Listener can't be null");
+        }
+
+        if (mActive) {
+            throw new IllegalStateException("Live query is already started");
+        }
+
+        mListener = listener;
+        mActive = true;
+        mResetResult = true;
+
+        mDao.addTableObserver(mTableObserver);
+        scheduleRefresh(0);
+    }
+
+    /**
+     * Stops observing table, results of running query are not delivered.
+     */
+    public synchronized void stop() {
+        if (!mActive) {
+            return;
+        }
+
+        mActive = false;
+        mDao.removeTableObserver(mTableObserver);
+
+        if (mPendingRefresh != null) {
+            mPendingRefresh.cancel(false);
+            mPendingRefresh = null;
+        }
+    }
+
+    public boolean isActive() {
+        return mActive;
+    }
+
+    private synchronized void scheduleRefresh(long delayMillis) {
+        //refresh which is already scheduled will see this change too
+        if (!mActive || mPendingRefresh != null) {
+            return;
+        }
+
+        mPendingRefresh = getExecutor().schedule(mRefreshTask, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh() {
+        if (!mActive) {
+            return;
+        }
+
+        if (mResetResult) {
+            mResetResult = false;
+            mLastResult = null;
+        }
+
+        final List<Entity> entities;
+        Map<Key, Entity> result;
+        try {
+            entities = mDao.selectEntities(mCondition, mOrderBy);
+            result = mapByKey(entities);
+        } catch (final RuntimeException e) {
+            deliver(new Runnable() {
+
+                @Override
+                public void run() {
+                    mListener.onError(e);
+                }
+            });
+            return;
+        }
+
+        boolean firstResult = mLastResult == null;
+        final QueryDelta<Key, Entity> delta = diff(firstResult ? Collections.<Key, Entity>emptyMap() : mLastResult, result);
+        mLastResult = result;
+
+        if (!firstResult && delta.isEmpty()) {
+            return;
+        }
+
+        deliver(new Runnable() {
+
+            @Override
+            public void run() {
+                mListener.onChanged(entities, delta);
+            }
+        });
+    }
+
+    private Map<Key, Entity> mapByKey(List<Entity> entities) {
+        Map<Key, Entity> result = new LinkedHashMap<>(entities.size() * 4 / 3 + 1);
+
+        for (Entity entity : entities) {
+            Key key = mDao.getEntityKey(entity);
+
+            if (key == null) {
+                throw new IllegalStateException("Live query requires keys of entities, override getEntityKey()");
+            }
+
+            result.put(key, entity);
+        }
+
+        return result;
+    }
+
+    private void deliver(final Runnable callback) {
+        mMainHandler.post(new Runnable() {
+
+            @Override
+            public void run() {
+                if (mActive) {
+                    callback.run();
+                }
+            }
+        });
+    }
+
+    private static <Key, Entity> QueryDelta<Key, Entity> diff(Map<Key, Entity> previous, Map<Key, Entity> current) {
+        List<Entity> inserted = new ArrayList<>();
+        List<Entity> changed = new ArrayList<>();
+        List<Key> removed = new ArrayList<>();
+
+        for (Map.Entry<Key, Entity> entry : current.entrySet()) {
+            Entity previousEntity = previous.get(entry.getKey());
+
+            if (previousEntity == null) {
+                inserted.add(entry.getValue());
+            } else if (!previousEntity.equals(entry.getValue())) {
+                changed.add(entry.getValue());
+            }
+        }
+
+        for (Key key : previous.keySet()) {
+            if (!current.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+
+        return new QueryDelta<>(inserted, removed, changed);
+    }
+
+    private static synchronized ScheduledExecutorService getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "LiveQuery");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return sExecutor;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.model.CacheStats;
+import com.ls.database.model.EntityCache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EntityCache} which keeps strong references to entities and evicts least recently used keys
+ * when total size exceeds max size. Size of entry is 1 unless {@link #sizeOf(Object, List)} is overridden.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class LruEntityCache<Key, Entity> implements EntityCache<Key, Entity> {
+
+    private final int maxSize;
+
+    private final LinkedHashMap<Key, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int size;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public LruEntityCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size has to be greater than 0");
+        }
+
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public synchronized List<Entity> get(Key key) {
+        CacheEntry entry = entries.get(key);
+        List<Entity> entities = entry != null ? dereference(entry.reference) : null;
+
+        if (entities != null) {
+            hitCount++;
+            return entities;
+        }
+
+        if (entry != null) {
+            //reference was reclaimed
+            removeEntry(key);
+            evictionCount++;
+        }
+
+        missCount++;
+        return null;
+    }
+
+    @Override
+    public synchronized void put(Key key, List<Entity> entities) {
+        int entrySize = sizeOf(key, entities);
+
+        if (entrySize < 0) {
+            throw new IllegalStateException("Negative size of " + key);
+        }
+
+        CacheEntry previous = entries.put(key, new CacheEntry(reference(entities), entrySize));
+        if (previous != null) {
+            size -= previous.size;
+        }
+        size += entrySize;
+
+        trimToSize();
+    }
+
+    @Override
+    public synchronized void remove(Key key) {
+        removeEntry(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    @Override
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hitCount, missCount, evictionCount, size, maxSize);
+    }
+
+    /**
+     * @return size of entry in units of max size, e.g. count of entities for weight-bounded cache.
+     */
+    protected int sizeOf(Key key, List<Entity> entities) {
+        return 1;
+    }
+
+    /**
+     * @return object which holds cached entities.
+     */
+    protected Object reference(List<Entity> entities) {
+        return entities;
+    }
+
+    /**
+     * @return entities held by reference returned from {@link #reference(List)}, null if they were reclaimed.
+     */
+    @SuppressWarnings("unchecked")
+    protected List<Entity> dereference(Object reference) {
+        return (List<Entity>) reference;
+    }
+
+    private void removeEntry(Key key) {
+        CacheEntry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.size;
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<Key, CacheEntry>> iterator = entries.entrySet().iterator();
+
+        while (size > maxSize && iterator.hasNext()) {
+            CacheEntry eldest = iterator.next().getValue();
+            iterator.remove();
+
+            size -= eldest.size;
+            evictionCount++;
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final Object reference;
+        private final int size;
+
+        CacheEntry(Object reference, int size) {
+            this.reference = reference;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.model.CacheStats;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LRU cache of query results of one database. Entries are weighted by count of rows and
+ * invalidated by table when {@link Database} writes to it.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+class QueryCache {
+
+    private final int maxRows;
+
+    private final LinkedHashMap<QueryKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<QueryKey>> tableKeys = new HashMap<>();
+    private int rowCount;
+
+    /**
+     * Modification counter, stamp of the last invalidation of each table and of the whole cache.
+     */
+    private long modCount;
+    private final Map<String, Long> tableInvalidations = new HashMap<>();
+    private long clearInvalidation;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    QueryCache(int maxRows) {
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("Max row count has to be greater than 0");
+        }
+
+        this.maxRows = maxRows;
+    }
+
+    synchronized Object get(QueryKey key) {
+        CacheEntry entry = entries.get(key);
+
+        if (entry != null) {
+            hitCount++;
+            return entry.result;
+        }
+
+        missCount++;
+        return null;
+    }
+
+    /**
+     * @return stamp which has to be taken before running query and passed to {@link #put(QueryKey, Object, int, long)}.
+     */
+    synchronized long getStamp() {
+        return modCount;
+    }
+
+    /**
+     * Caches result unless its table was invalidated after stamp was taken.
+     *
+     * @param result immutable result of query.
+     * @param rows count of rows in result.
+     */
+    synchronized void put(QueryKey key, Object result, int rows, long stamp) {
+        Long tableInvalidation = tableInvalidations.get(key.table);
+
+        if (clearInvalidation > stamp || (tableInvalidation != null && tableInvalidation > stamp)) {
+            return;
+        }
+
+        int weight = Math.max(rows, 1);
+        if (weight > maxRows) {
+            return;
+        }
+
+        removeEntry(key);
+
+        entries.put(key, new CacheEntry(result, weight));
+        rowCount += weight;
+
+        Set<QueryKey> keys = tableKeys.get(key.table);
+        if (keys == null) {
+            keys = new HashSet<>();
+            tableKeys.put(key.table, keys);
+        }
+        keys.add(key);
+
+        trimToSize();
+    }
+
+    /**
+     * @param table changed table, null if table is unknown, in this case all results are removed.
+     */
+    synchronized void invalidate(String table) {
+        modCount++;
+
+        if (table == null) {
+            clearInvalidation = modCount;
+
+            entries.clear();
+            tableKeys.clear();
+            tableInvalidations.clear();
+            rowCount = 0;
+            return;
+        }
+
+        tableInvalidations.put(table, modCount);
+
+        Set<QueryKey> keys = tableKeys.remove(table);
+        if (keys != null) {
+            for (QueryKey key : keys) {
+                CacheEntry entry = entries.remove(key);
+                if (entry != null) {
+                    rowCount -= entry.weight;
+                }
+            }
+        }
+    }
+
+    synchronized CacheStats getStats() {
+        return new CacheStats(hitCount, missCount, evictionCount, rowCount, maxRows);
+    }
+
+    private void removeEntry(QueryKey key) {
+        CacheEntry entry = entries.remove(key);
+
+        if (entry != null) {
+            rowCount -= entry.weight;
+
+            Set<QueryKey> keys = tableKeys.get(key.table);
+            if (keys != null) {
+                keys.remove(key);
+            }
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<QueryKey, CacheEntry>> iterator = entries.entrySet().iterator();
+
+        while (rowCount > maxRows && iterator.hasNext()) {
+            Map.Entry<QueryKey, CacheEntry> eldest = iterator.next();
+            iterator.remove();
+
+            rowCount -= eldest.getValue().weight;
+            evictionCount++;
+
+            Set<QueryKey> keys = tableKeys.get(eldest.getKey().table);
+            if (keys != null) {
+                keys.remove(eldest.getKey());
+            }
+        }
+    }
+
+    /**
+     * Identifies query by table and all parameters which affect its result.
+     */
+    static class QueryKey {
+
+        private final String table;
+        private final Object[] parameters;
+        private final int hashCode;
+
+        /**
+         * @param parameters e.g. converter, columns, where clause, where args and order.
+         */
+        QueryKey(String table, Object... parameters) {
+            this.table = table;
+            this.parameters = parameters;
+            this.hashCode = 31 * table.hashCode() + Arrays.deepHashCode(parameters);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof QueryKey)) {
+                return false;
+            }
+
+            QueryKey queryKey = (QueryKey) o;
+            return hashCode == queryKey.hashCode && table.equals(queryKey.table)
+                    && Arrays.deepEquals(parameters, queryKey.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final Object result;
+        private final int weight;
+
+        CacheEntry(Object result, int weight) {
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of read-only connections to database in write-ahead logging mode.
+ * Connections are opened lazily, every connection is used by one reader at a time,
+ * so reads from different threads run in parallel and don't wait for writer.
+ * If all connections stay in use, e.g. by open cursors or iterators, queries run on the writer connection.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+class ReadConnectionPool {
+
+    /**
+     * Max time to wait for released connection before query falls back to the writer connection.
+     */
+    static final long ACQUIRE_TIMEOUT_MILLIS = 100;
+
+    private final String path;
+    private final int maxSize;
+    private final DatabaseTuning tuning;
+
+    private final AtomicLong exhaustedCounter = new AtomicLong();
+
+    private final BlockingQueue<SQLiteDatabase> idleConnections;
+    private final List<SQLiteDatabase> connections;
+
+    private boolean closed;
+
+    /**
+     * @param tuning tuning of database, its per connection pragmas are applied to every opened connection.
+     * Null to keep defaults.
+     */
+    ReadConnectionPool(String path, int maxSize, DatabaseTuning tuning) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size has to be greater than 0");
+        }
+
+        this.path = path;
+        this.maxSize = maxSize;
+        this.tuning = tuning;
+        this.idleConnections = new LinkedBlockingQueue<>();
+        this.connections = new ArrayList<>(maxSize);
+    }
+
+    /**
+     * Returns idle connection, opens new one if pool is not full or waits for released connection
+     * at most {@link #ACQUIRE_TIMEOUT_MILLIS}.
+     *
+     * @return connection or null if all connections stay in use, caller has to use the writer connection then.
+     * Waiting without timeout could deadlock if the same thread holds all connections by open cursors.
+     */
+    SQLiteDatabase acquire() {
+        SQLiteDatabase connection = idleConnections.poll();
+        if (connection != null) {
+            return connection;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Pool of read connections is already closed");
+            }
+
+            if (connections.size() < maxSize) {
+                connection = SQLiteDatabase.openDatabase(path, null, SQLiteDatabase.OPEN_READONLY);
+                if (tuning != null) {
+                    tuning.applyToConnection(connection);
+                }
+
+                connections.add(connection);
+                return connection;
+            }
+        }
+
+        try {
+            connection = idleConnections.poll(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (connection == null) {
+            exhaustedCounter.incrementAndGet();
+        }
+
+        return connection;
+    }
+
+    void release(SQLiteDatabase connection) {
+        synchronized (this) {
+            if (closed) {
+                connection.close();
+                return;
+            }
+        }
+
+        idleConnections.offer(connection);
+    }
+
+    /**
+     * @return count of opened connections.
+     */
+    synchronized int getSize() {
+        return connections.size();
+    }
+
+    /**
+     * @return count of queries which ran on the writer connection because all connections were in use.
+     */
+    long getExhaustedCount() {
+        return exhaustedCounter.get();
+    }
+
+    /**
+     * Wraps cursor so connection is released back to pool when cursor is closed.
+     */
+    Cursor wrap(Cursor cursor, SQLiteDatabase connection) {
+        return new PooledCursor(cursor, connection);
+    }
+
+    /**
+     * Closes idle connections, connections in use are closed when they are released.
+     */
+    synchronized void close() {
+        closed = true;
+
+        SQLiteDatabase connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+
+        connections.clear();
+    }
+
+    private class PooledCursor extends CursorWrapper {
+
+        private SQLiteDatabase connection;
+
+        PooledCursor(Cursor cursor, SQLiteDatabase connection) {
+            super(cursor);
+            this.connection = connection;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+
+            if (connection != null) {
+                release(connection);
+                connection = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import java.lang.ref.SoftReference;
+import java.util.List;
+
+/**
+ * {@link LruEntityCache} which holds entities via {@link SoftReference}, so garbage collector can reclaim them
+ * under memory pressure before max size is reached.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class SoftLruEntityCache<Key, Entity> extends LruEntityCache<Key, Entity> {
+
+    public SoftLruEntityCache(int maxSize) {
+        super(maxSize);
+    }
+
+    @Override
+    protected Object reference(List<Entity> entities) {
+        return new SoftReference<>(entities);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected List<Entity> dereference(Object reference) {
+        return ((SoftReference<List<Entity>>) reference).get();
+    }
+}
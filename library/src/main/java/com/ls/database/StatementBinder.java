@@ -0,0 +1,48 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Binds entity directly into compiled INSERT statement, without building ContentValues and boxing of values.
+ * If {@link BaseDAO#getEntityConverter()} implements this interface, it's used by inserts of the DAO.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public interface StatementBinder<Entity> {
+
+    /**
+     * Called on every insert, so implementations should return a constant instead of a new array.
+     * Returned array is only read and must not be modified by callers.
+     *
+     * @return columns bound by {@link #bindValues(SQLiteStatement, Object)}, in order of bind indexes.
+     */
+    String[] getColumnNames();
+
+    /**
+     * Binds values of entity to statement arguments from 1 to count of {@link #getColumnNames()}.
+     */
+    void bindValues(SQLiteStatement statement, Entity entity);
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LRU cache of compiled statements of one database connection, statements are keyed by their SQL.
+ * Cached statement is used by one caller at a time: while it's acquired, other callers of the same SQL get
+ * one-off statement instead of waiting, so no lock is held while statement executes.
+ * Statements are reference counted: cache holds one reference and every user acquires own one,
+ * so evicted statement is released only after the last user finishes with it.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+class StatementCache {
+
+    private final int maxSize;
+    private final LinkedHashMap<String, SQLiteStatement> statements;
+    private final Set<SQLiteStatement> acquiredStatements = new HashSet<>();
+
+    StatementCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size has to be greater than 0");
+        }
+
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns cached statement for exclusive usage, null if statement is not cached or is used by another caller.
+     * Caller has to call {@link #release(SQLiteStatement)} after usage.
+     */
+    synchronized SQLiteStatement acquire(String sql) {
+        SQLiteStatement statement = statements.get(sql);
+
+        if (statement == null || acquiredStatements.contains(statement)) {
+            return null;
+        }
+
+        statement.acquireReference();
+        acquiredStatements.add(statement);
+
+        return statement;
+    }
+
+    /**
+     * Puts newly compiled statement into cache and acquires it for exclusive usage of caller.
+     * If statement of the same SQL is used by another caller, compiled statement isn't cached and
+     * is closed by {@link #release(SQLiteStatement)}.
+     */
+    synchronized SQLiteStatement putAndAcquire(String sql, SQLiteStatement statement) {
+        SQLiteStatement previous = statements.get(sql);
+        if (previous != null && acquiredStatements.contains(previous)) {
+            return statement;
+        }
+
+        statements.put(sql, statement);
+        if (previous != null) {
+            previous.releaseReference();
+        }
+
+        statement.acquireReference();
+        acquiredStatements.add(statement);
+
+        trimToSize();
+
+        return statement;
+    }
+
+    /**
+     * Returns statement acquired by {@link #acquire(String)} or {@link #putAndAcquire(String, SQLiteStatement)}.
+     */
+    synchronized void release(SQLiteStatement statement) {
+        acquiredStatements.remove(statement);
+        statement.releaseReference();
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Releases all cached statements, acquired ones are closed after they are released by their users.
+     */
+    synchronized void clear() {
+        for (SQLiteStatement statement : statements.values()) {
+            statement.releaseReference();
+        }
+
+        statements.clear();
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, SQLiteStatement>> iterator = statements.entrySet().iterator();
+
+        while (statements.size() > maxSize && iterator.hasNext()) {
+            SQLiteStatement eldest = iterator.next().getValue();
+            iterator.remove();
+            eldest.releaseReference();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.model.TableChangeEvent;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects tables and keys changed by one transaction.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+class TableChanges {
+
+    /**
+     * Keys of table are not tracked if transaction changes more rows, notification is sent without keys.
+     */
+    static final int MAX_TRACKED_KEYS = 1000;
+
+    private final Map<String, Set<Object>> tableKeys = new HashMap<>();
+    private boolean unknownTables;
+
+    /**
+     * @param table changed table, null if it's unknown.
+     * @param keys keys of changed rows, null if they are unknown.
+     */
+    void add(String table, Collection<?> keys) {
+        if (table == null) {
+            unknownTables = true;
+            return;
+        }
+
+        if (!tableKeys.containsKey(table)) {
+            tableKeys.put(table, keys != null ? new HashSet<Object>(keys) : null);
+        } else {
+            Set<Object> trackedKeys = tableKeys.get(table);
+
+            if (trackedKeys != null) {
+                if (keys != null) {
+                    trackedKeys.addAll(keys);
+                } else {
+                    tableKeys.put(table, null);
+                }
+            }
+        }
+
+        Set<Object> trackedKeys = tableKeys.get(table);
+        if (trackedKeys != null && trackedKeys.size() > MAX_TRACKED_KEYS) {
+            tableKeys.put(table, null);
+        }
+    }
+
+    Set<String> getTables() {
+        return tableKeys.keySet();
+    }
+
+    boolean hasUnknownTables() {
+        return unknownTables;
+    }
+
+    TableChangeEvent toEvent() {
+        return new TableChangeEvent(tableKeys, unknownTables);
+    }
+}
@@ -23,15 +23,26 @@
  */
 package com.ls.database;
 
+import com.ls.database.model.Projection;
+
 import android.text.TextUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
-public class TableInfo {
+public class TableInfo implements Projection {
 
     private final String tableName;
     private final String createTableQuery;
+    private final List<Column<?>> columns;
+    private final String[] columnNames;
 
     /**
      * Info that helps to do initialization of database table.
@@ -47,6 +58,42 @@ public class TableInfo {
 
         this.tableName = tableName;
         this.createTableQuery = createTableQuery;
+        this.columns = Collections.emptyList();
+        this.columnNames = new String[0];
+    }
+
+    /**
+     * Info of table described by columns, CREATE statement is generated from them.
+     * Order of columns defines canonical projection of the table and ordinals of columns.
+     */
+    public TableInfo(String tableName, Column<?>... columns) {
+        if (TextUtils.isEmpty(tableName)) {
+            throw new IllegalArgumentException("Table name query can't be empty");
+        }
+
+        if (columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("Table has to have at least one column");
+        }
+
+        Set<String> names = new HashSet<>();
+        String[] columnNames = new String[columns.length];
+
+        for (int i = 0; i < columns.length; i++) {
+            if (!names.add(columns[i].getName())) {
+                throw new IllegalArgumentException("Column " + columns[i].getName() + " is added more than once");
+            }
+
+            columnNames[i] = columns[i].getName();
+        }
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].attach(this, i);
+        }
+
+        this.tableName = tableName;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(columns)));
+        this.columnNames = columnNames;
+        this.createTableQuery = buildCreateTableQuery();
     }
 
     public String getTableName() {
@@ -56,4 +103,54 @@ public class TableInfo {
     public String getCreateTableQuery() {
         return createTableQuery;
     }
+
+    /**
+     * @return column descriptors in canonical order, empty list if table is created by raw query.
+     */
+    public List<Column<?>> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return names of columns in canonical order, empty array if table is created by raw query.
+     */
+    @Override
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    public boolean hasColumns() {
+        return columnNames.length > 0;
+    }
+
+    /**
+     * @return canonical projection without copying, must not be modified.
+     */
+    String[] getProjection() {
+        return columnNames;
+    }
+
+    private String buildCreateTableQuery() {
+        List<String> primaryKey = new ArrayList<>();
+        for (Column<?> column : columns) {
+            if (column.isPrimaryKey()) {
+                primaryKey.add(column.getName());
+            }
+        }
+
+        boolean singlePrimaryKey = primaryKey.size() == 1;
+
+        StringBuilder query = new StringBuilder(64 + columns.size() * 32);
+        query.append("CREATE TABLE IF NOT EXISTS ").append(tableName).append(" (");
+
+        for (int i = 0; i < columns.size(); i++) {
+            query.append(i > 0 ? ", " : "").append(columns.get(i).getDefinition(singlePrimaryKey));
+        }
+
+        if (primaryKey.size() > 1) {
+            query.append(", PRIMARY KEY (").append(TextUtils.join(", ", primaryKey)).append(')');
+        }
+
+        return query.append(");").toString();
+    }
 }
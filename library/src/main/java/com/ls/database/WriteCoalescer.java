@@ -0,0 +1,313 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database;
+
+import com.ls.database.model.ConflictType;
+import com.ls.database.model.WriteCoalescingOptions;
+
+import android.content.ContentValues;
+import android.database.SQLException;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind queue of {@link BaseDAO} which flushes queued insert-or-replace writes in one transaction.
+ * Writes with the same value of key column are collapsed, only the last one is written.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+class WriteCoalescer<Key> {
+
+    private final BaseDAO<Key, ?> mDao;
+    private final WriteCoalescingOptions mOptions;
+
+    private final ScheduledExecutorService mFlushExecutor;
+
+    private final Object mLock = new Object();
+    private Map<Object, PendingWrite<Key>> mPendingWrites = new LinkedHashMap<>();
+    private boolean mFlushScheduled;
+    private boolean mImmediateFlushScheduled;
+    private boolean mShutdown;
+
+    private final Runnable mFlushTask = new Runnable() {
+
+        @Override
+        public void run() {
+            flushPendingWrites();
+        }
+    };
+
+    WriteCoalescer(BaseDAO<Key, ?> dao, WriteCoalescingOptions options) {
+        mDao = dao;
+        mOptions = options;
+
+        mFlushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "WriteCoalescer-" + mDao.getTableName());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @param entityKey key of written entity evicted from entity cache and dirty tracking after flush,
+     * null clears them completely.
+     */
+    Future<Long> enqueue(Key entityKey, ContentValues values) {
+        WriteFuture future = new WriteFuture();
+        Object key = extractKey(values);
+
+        synchronized (mLock) {
+            if (mShutdown) {
+                throw new IllegalStateException("Write coalescing is not enabled");
+            }
+
+            PendingWrite<Key> write = mPendingWrites.get(key);
+
+            if (write == null) {
+                write = new PendingWrite<>();
+                mPendingWrites.put(key, write);
+            }
+
+            write.entityKey = entityKey;
+            write.values = values;
+            write.futures.add(future);
+
+            if (mPendingWrites.size() >= mOptions.getMaxBatchSize()) {
+                //one immediate flush takes all queued writes, further ones would only wake flush thread
+                if (!mImmediateFlushScheduled) {
+                    mFlushExecutor.execute(mFlushTask);
+                    mImmediateFlushScheduled = true;
+                }
+            } else if (!mFlushScheduled) {
+                mFlushExecutor.schedule(mFlushTask, mOptions.getDelayMillis(), TimeUnit.MILLISECONDS);
+                mFlushScheduled = true;
+            }
+        }
+
+        return future;
+    }
+
+    /**
+     * Writes all queued writes and waits until they are committed.
+     */
+    void flush() {
+        try {
+            mFlushExecutor.submit(mFlushTask).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Flushing of queued writes failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return count of queued writes after collapsing writes with the same key.
+     */
+    int getPendingWriteCount() {
+        synchronized (mLock) {
+            return mPendingWrites.size();
+        }
+    }
+
+    /**
+     * Flushes queued writes and stops flush thread, writes can't be queued after that.
+     */
+    void shutdown() {
+        synchronized (mLock) {
+            mShutdown = true;
+        }
+
+        flush();
+        mFlushExecutor.shutdown();
+    }
+
+    private Object extractKey(ContentValues values) {
+        String keyColumnName = mDao.getKeyColumnName();
+        Object key = !TextUtils.isEmpty(keyColumnName) ? values.get(keyColumnName) : null;
+
+        //rows without key can't be matched, each of them is written separately
+        return key != null ? normalizeKey(key) : new Object();
+    }
+
+    /**
+     * Converters may put the same key as different number types, e.g. {@link Integer} and {@link Long},
+     * which are not equal to each other. They are stored as the same value, so they have to be collapsed.
+     */
+    private static Object normalizeKey(Object key) {
+        if (key instanceof Byte || key instanceof Short || key instanceof Integer) {
+            return ((Number) key).longValue();
+        }
+
+        if (key instanceof Float) {
+            return ((Float) key).doubleValue();
+        }
+
+        return key;
+    }
+
+    private void flushPendingWrites() {
+        Map<Object, PendingWrite<Key>> writes;
+
+        synchronized (mLock) {
+            writes = mPendingWrites;
+            mPendingWrites = new LinkedHashMap<>();
+            mFlushScheduled = false;
+            mImmediateFlushScheduled = false;
+        }
+
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        try {
+            write(mDao.getDatabase(), writes);
+        } catch (RuntimeException e) {
+            for (PendingWrite<Key> write : writes.values()) {
+                write.completeExceptionally(e);
+            }
+            return;
+        }
+
+        for (PendingWrite<Key> write : writes.values()) {
+            write.complete();
+        }
+    }
+
+    private void write(Database database, Map<Object, PendingWrite<Key>> writes) {
+        String tableName = mDao.getTableName();
+
+        try {
+            database.open();
+            database.beginTransaction();
+            try {
+                for (PendingWrite<Key> write : writes.values()) {
+                    write.rowId = database.insert(tableName, null, write.values, ConflictType.CONFLICT_REPLACE);
+                    mDao.onBatchWrite(database, write.entityKey);
+                }
+
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
+        } finally {
+            database.close();
+        }
+    }
+
+    private static class PendingWrite<Key> {
+
+        private Key entityKey;
+        private ContentValues values;
+        private long rowId;
+        private final List<WriteFuture> futures = new ArrayList<>(1);
+
+        void complete() {
+            //database logs and swallows insert errors, failed write has -1 row id
+            if (rowId == -1) {
+                completeExceptionally(new SQLException("Error inserting " + values));
+                return;
+            }
+
+            for (WriteFuture future : futures) {
+                future.complete(rowId, null);
+            }
+        }
+
+        void completeExceptionally(Throwable error) {
+            for (WriteFuture future : futures) {
+                future.complete(0, error);
+            }
+        }
+    }
+
+    /**
+     * Completed with row id after transaction containing the write is committed,
+     * or with {@link SQLException} if the row wasn't written. Queued writes can't be cancelled.
+     */
+    private static class WriteFuture implements Future<Long> {
+
+        private final CountDownLatch mDone = new CountDownLatch(1);
+
+        private volatile long mRowId;
+        private volatile Throwable mError;
+
+        void complete(long rowId, Throwable error) {
+            mRowId = rowId;
+            mError = error;
+            mDone.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return mDone.getCount() == 0;
+        }
+
+        @Override
+        public Long get() throws InterruptedException, ExecutionException {
+            mDone.await();
+            return getResult();
+        }
+
+        @Override
+        public Long get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if (!mDone.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return getResult();
+        }
+
+        private Long getResult() throws ExecutionException {
+            if (mError != null) {
+                throw new ExecutionException(mError);
+            }
+            return mRowId;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.model;
+
+/**
+ * Options of batch write which commits data by chunks instead of one transaction per row or per whole list.
+ * Chunk is committed when it reaches chunkSize items or when it lasts longer than chunkTimeMillis.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class BatchWriteOptions {
+
+    private final int chunkSize;
+    private final long chunkTimeMillis;
+    private final boolean yieldIfContended;
+    private final BatchProgressListener progressListener;
+
+    /**
+     * @param chunkSize max count of items in one transaction.
+     * @param chunkTimeMillis max duration of one transaction in milliseconds, 0 for no limit.
+     * @param yieldIfContended if true, chunk transaction is committed through
+     * {@link android.database.sqlite.SQLiteDatabase#yieldIfContendedSafely()} to let waiting threads access database.
+     * @param progressListener listener which is notified after each committed chunk, can be null.
+     */
+    public BatchWriteOptions(int chunkSize, long chunkTimeMillis, boolean yieldIfContended, BatchProgressListener progressListener) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size has to be greater than 0");
+        }
+
+        if (chunkTimeMillis < 0) {
+            throw new IllegalArgumentException("Chunk time can't be negative");
+        }
+
+        this.chunkSize = chunkSize;
+        this.chunkTimeMillis = chunkTimeMillis;
+        this.yieldIfContended = yieldIfContended;
+        this.progressListener = progressListener;
+    }
+
+    public BatchWriteOptions(int chunkSize) {
+        this(chunkSize, 0, false, null);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getChunkTimeMillis() {
+        return chunkTimeMillis;
+    }
+
+    public boolean isYieldIfContended() {
+        return yieldIfContended;
+    }
+
+    public BatchProgressListener getProgressListener() {
+        return progressListener;
+    }
+}
@@ -33,7 +33,7 @@ public enum ConflictType {
     /**
      * Use the following when no conflict action is specified.
      */
-    CONFLICT_NONE(SQLiteDatabase.CONFLICT_NONE),
+    CONFLICT_NONE(SQLiteDatabase.CONFLICT_NONE, ""),
 
     /**
      * When a constraint violation occurs, an immediate ROLLBACK occurs,
@@ -41,21 +41,21 @@ public enum ConflictType {
      * (other than the implied transaction that is created on every command)
      * then this algorithm works the same as ABORT.
      */
-    CONFLICT_ROLLBACK(SQLiteDatabase.CONFLICT_ROLLBACK),
+    CONFLICT_ROLLBACK(SQLiteDatabase.CONFLICT_ROLLBACK, " OR ROLLBACK"),
 
     /**
      * When a constraint violation occurs, no ROLLBACK is executed
      * so changes from prior commands within the same transaction
      * are preserved. This is the default behavior.
      */
-    CONFLICT_ABORT(SQLiteDatabase.CONFLICT_ABORT),
+    CONFLICT_ABORT(SQLiteDatabase.CONFLICT_ABORT, " OR ABORT"),
 
     /**
      * When a constraint violation occurs. But any changes to the database that
      * the command made prior to encountering the constraint violation
      * are preserved and are not backed out.
      */
-    CONFLICT_FAIL(SQLiteDatabase.CONFLICT_FAIL),
+    CONFLICT_FAIL(SQLiteDatabase.CONFLICT_FAIL, " OR FAIL"),
 
     /**
      * When a constraint violation occurs, the one row that contains
@@ -64,7 +64,7 @@ public enum ConflictType {
      * after the row that contained the constraint violation continue to be
      * inserted or updated normally. No error is returned.
      */
-    CONFLICT_IGNORE(SQLiteDatabase.CONFLICT_IGNORE),
+    CONFLICT_IGNORE(SQLiteDatabase.CONFLICT_IGNORE, " OR IGNORE"),
 
     /**
      * When a UNIQUE constraint violation occurs, the pre-existing rows that
@@ -79,15 +79,24 @@ public enum ConflictType {
      * it does not invoke delete triggers on those rows.
      * This behavior might change in a future release.
      */
-    CONFLICT_REPLACE(SQLiteDatabase.CONFLICT_REPLACE);
+    CONFLICT_REPLACE(SQLiteDatabase.CONFLICT_REPLACE, " OR REPLACE");
 
     private int mValue;
+    private String mSqlClause;
 
-    ConflictType(int value) {
+    ConflictType(int value, String sqlClause) {
         mValue = value;
+        mSqlClause = sqlClause;
     }
 
     public int getValue() {
         return mValue;
     }
+
+    /**
+     * Returns conflict clause to put after INSERT or UPDATE keyword, e.g. " OR REPLACE".
+     */
+    public String getSqlClause() {
+        return mSqlClause;
+    }
 }
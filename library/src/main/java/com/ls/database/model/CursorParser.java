@@ -23,8 +23,12 @@
  */
 package com.ls.database.model;
 
+import android.database.CharArrayBuffer;
 import android.database.Cursor;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
@@ -32,44 +36,70 @@ public class CursorParser {
 
     private Cursor mCursor;
 
+    /**
+     * Column indexes resolved by name, built on first lookup by name because
+     * {@link Cursor#getColumnIndex(String)} scans all column names on every call.
+     */
+    private Map<String, Integer> mColumnIndexes;
+
+    /**
+     * Last array of columns passed to {@link #getColumnIndexes(String[])} and its resolved indexes.
+     */
+    private String[] mResolvedColumns;
+    private int[] mResolvedIndexes;
+
+    /**
+     * Projection of cursor, null if projection is arbitrary.
+     */
+    private Projection mProjection;
+
     public CursorParser(Cursor cursor) {
+        this(cursor, null);
+    }
+
+    /**
+     * @param projection projection whose {@link Projection#getColumnNames()} were used as projection of cursor,
+     * its columns are read by ordinal without lookups by name. Null if projection is arbitrary.
+     */
+    public CursorParser(Cursor cursor, Projection projection) {
         mCursor = cursor;
+        mProjection = projection;
     }
 
     public String readString(String columnName) {
-        return readString(mCursor.getColumnIndex(columnName));
+        return readString(getColumnIndex(columnName));
     }
 
     public Byte readByte(String columnName) {
-        return readByte(mCursor.getColumnIndex(columnName));
+        return readByte(getColumnIndex(columnName));
     }
 
     public Short readShort(String columnName) {
-        return readShort(mCursor.getColumnIndex(columnName));
+        return readShort(getColumnIndex(columnName));
     }
 
     public Integer readInteger(String columnName) {
-        return readInteger(mCursor.getColumnIndex(columnName));
+        return readInteger(getColumnIndex(columnName));
     }
 
     public Long readLong(String columnName) {
-        return readLong(mCursor.getColumnIndex(columnName));
+        return readLong(getColumnIndex(columnName));
     }
 
     public Float readFloat(String columnName) {
-        return readFloat(mCursor.getColumnIndex(columnName));
+        return readFloat(getColumnIndex(columnName));
     }
 
     public Double readDouble(String columnName) {
-        return readDouble(mCursor.getColumnIndex(columnName));
+        return readDouble(getColumnIndex(columnName));
     }
 
     public Boolean readBoolean(String columnName) {
-        return readBoolean(mCursor.getColumnIndex(columnName));
+        return readBoolean(getColumnIndex(columnName));
     }
 
     public byte[] readBlob(String columnName) {
-        return readBlob(mCursor.getColumnIndex(columnName));
+        return readBlob(getColumnIndex(columnName));
     }
 
     public String readString(int columnIndex) {
@@ -108,8 +138,156 @@ public class CursorParser {
         return mCursor.getBlob(columnIndex);
     }
 
+    /**
+     * Primitive reads don't allocate wrapper objects, nullValue is returned if column value is NULL.
+     */
+    public long readLongPrimitive(String columnName, long nullValue) {
+        return readLongPrimitive(getColumnIndex(columnName), nullValue);
+    }
+
+    public int readIntPrimitive(String columnName, int nullValue) {
+        return readIntPrimitive(getColumnIndex(columnName), nullValue);
+    }
+
+    public short readShortPrimitive(String columnName, short nullValue) {
+        return readShortPrimitive(getColumnIndex(columnName), nullValue);
+    }
+
+    public byte readBytePrimitive(String columnName, byte nullValue) {
+        return readBytePrimitive(getColumnIndex(columnName), nullValue);
+    }
+
+    public double readDoublePrimitive(String columnName, double nullValue) {
+        return readDoublePrimitive(getColumnIndex(columnName), nullValue);
+    }
+
+    public float readFloatPrimitive(String columnName, float nullValue) {
+        return readFloatPrimitive(getColumnIndex(columnName), nullValue);
+    }
+
+    public boolean readBooleanPrimitive(String columnName, boolean nullValue) {
+        return readBooleanPrimitive(getColumnIndex(columnName), nullValue);
+    }
+
+    public long readLongPrimitive(int columnIndex, long nullValue) {
+        return mCursor.isNull(columnIndex) ? nullValue : mCursor.getLong(columnIndex);
+    }
+
+    public int readIntPrimitive(int columnIndex, int nullValue) {
+        return mCursor.isNull(columnIndex) ? nullValue : mCursor.getInt(columnIndex);
+    }
+
+    public short readShortPrimitive(int columnIndex, short nullValue) {
+        return mCursor.isNull(columnIndex) ? nullValue : mCursor.getShort(columnIndex);
+    }
+
+    public byte readBytePrimitive(int columnIndex, byte nullValue) {
+        return mCursor.isNull(columnIndex) ? nullValue : (byte) mCursor.getInt(columnIndex);
+    }
+
+    public double readDoublePrimitive(int columnIndex, double nullValue) {
+        return mCursor.isNull(columnIndex) ? nullValue : mCursor.getDouble(columnIndex);
+    }
+
+    public float readFloatPrimitive(int columnIndex, float nullValue) {
+        return mCursor.isNull(columnIndex) ? nullValue : mCursor.getFloat(columnIndex);
+    }
+
+    public boolean readBooleanPrimitive(int columnIndex, boolean nullValue) {
+        return mCursor.isNull(columnIndex) ? nullValue : mCursor.getInt(columnIndex) > 0;
+    }
+
+    /**
+     * Reads value of column, by ordinal if cursor has projection of column.
+     */
+    public <T> T read(TypedColumn<T> column) {
+        return column.read(this, getColumnIndex(column));
+    }
+
+    public long readLongPrimitive(TypedColumn<Long> column, long nullValue) {
+        return readLongPrimitive(getColumnIndex(column), nullValue);
+    }
+
+    public int readIntPrimitive(TypedColumn<Integer> column, int nullValue) {
+        return readIntPrimitive(getColumnIndex(column), nullValue);
+    }
+
+    public short readShortPrimitive(TypedColumn<Short> column, short nullValue) {
+        return readShortPrimitive(getColumnIndex(column), nullValue);
+    }
+
+    public byte readBytePrimitive(TypedColumn<Byte> column, byte nullValue) {
+        return readBytePrimitive(getColumnIndex(column), nullValue);
+    }
+
+    public double readDoublePrimitive(TypedColumn<Double> column, double nullValue) {
+        return readDoublePrimitive(getColumnIndex(column), nullValue);
+    }
+
+    public float readFloatPrimitive(TypedColumn<Float> column, float nullValue) {
+        return readFloatPrimitive(getColumnIndex(column), nullValue);
+    }
+
+    public boolean readBooleanPrimitive(TypedColumn<Boolean> column, boolean nullValue) {
+        return readBooleanPrimitive(getColumnIndex(column), nullValue);
+    }
+
+    /**
+     * Copies text of column into buffer without creating {@link String}, buffer can be reused for every row.
+     * {@link CharArrayBuffer#sizeCopied} is 0 if column value is NULL.
+     */
+    public void readString(String columnName, CharArrayBuffer buffer) {
+        readString(getColumnIndex(columnName), buffer);
+    }
+
+    public void readString(int columnIndex, CharArrayBuffer buffer) {
+        mCursor.copyStringToBuffer(columnIndex, buffer);
+    }
+
     public int getColumnIndex(String columnName) {
-        return mCursor.getColumnIndex(columnName);
+        if (mColumnIndexes == null) {
+            mColumnIndexes = buildColumnIndexes();
+        }
+
+        Integer index = mColumnIndexes.get(columnName);
+
+        if (index == null) {
+            //cursor resolves names case insensitively and strips table prefix
+            index = mCursor.getColumnIndex(columnName);
+            mColumnIndexes.put(columnName, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * @return ordinal of column if cursor has projection of column, otherwise index resolved by name.
+     */
+    public int getColumnIndex(TypedColumn<?> column) {
+        if (mProjection != null && column.getProjection() == mProjection) {
+            return column.getOrdinal();
+        }
+
+        return getColumnIndex(column.getName());
+    }
+
+    /**
+     * Resolves indexes of several columns, -1 for columns missing in cursor.
+     * Result is cached by identity of given array, so converter which passes the same constant array
+     * for every row resolves columns only once per cursor. Returned array must not be modified.
+     */
+    public int[] getColumnIndexes(String[] columnNames) {
+        if (columnNames != mResolvedColumns) {
+            int[] indexes = new int[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                indexes[i] = getColumnIndex(columnNames[i]);
+            }
+
+            mResolvedColumns = columnNames;
+            mResolvedIndexes = indexes;
+        }
+
+        return mResolvedIndexes;
     }
 
     public int getCount() {
@@ -157,5 +335,22 @@ public class CursorParser {
      */
     public void releaseResources() {
         mCursor = null;
+        mColumnIndexes = null;
+        mResolvedColumns = null;
+        mResolvedIndexes = null;
+        mProjection = null;
+    }
+
+    private Map<String, Integer> buildColumnIndexes() {
+        String[] columnNames = mCursor.getColumnNames();
+        Map<String, Integer> columnIndexes = new HashMap<>(columnNames.length * 2);
+        for (int i = 0; i < columnNames.length; i++) {
+            //duplicated names, e.g. of joins, resolve to the first index like Cursor#getColumnIndex(String)
+            if (!columnIndexes.containsKey(columnNames[i])) {
+                columnIndexes.put(columnNames[i], i);
+            }
+        }
+
+        return columnIndexes;
     }
 }
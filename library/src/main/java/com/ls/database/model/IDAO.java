@@ -23,7 +23,11 @@
  */
 package com.ls.database.model;
 
+import com.ls.database.CursorConverter;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
@@ -34,28 +38,97 @@ public interface IDAO<Key, Entity> {
 
     void insertEntities(List<Entity> entities, boolean useTransaction);
 
+    /**
+     * Inserts entities committing them by chunks, has to be called outside of transaction,
+     * otherwise {@link IllegalStateException} is thrown.
+     */
+    void insertEntities(List<Entity> entities, BatchWriteOptions options);
+
     long insertOrReplaceEntity(Entity entity);
 
     void insertOrReplaceEntities(List<Entity> entities, boolean useTransaction);
 
+    void insertOrReplaceEntities(List<Entity> entities, BatchWriteOptions options);
+
+    /**
+     * Inserts entity or updates non-key columns of existing row with the same key.
+     * Unlike {@link #insertOrReplaceEntity(Object)} existing row is updated in place instead of being deleted and inserted again.
+     * Violation of other constraints throws {@link android.database.SQLException}.
+     *
+     * @return the number of rows inserted or updated.
+     */
+    int upsertEntity(Entity entity);
+
+    int upsertEntities(List<Entity> entities, boolean useTransaction);
+
+    int upsertEntities(List<Entity> entities, BatchWriteOptions options);
+
     int updateEntity(Key key, Entity entity);
 
     int updateEntities(List<EntityHolder<Key, Entity>> entities, boolean useTransaction);
 
+    /**
+     * Updates entities committing them by chunks, has to be called outside of transaction,
+     * otherwise {@link IllegalStateException} is thrown.
+     */
+    int updateEntities(List<EntityHolder<Key, Entity>> entities, BatchWriteOptions options);
+
     int updateOrReplaceEntity(Key key, Entity entity);
 
     int updateOrReplaceEntities(List<EntityHolder<Key, Entity>> entities, boolean useTransaction);
 
+    int updateOrReplaceEntities(List<EntityHolder<Key, Entity>> entities, BatchWriteOptions options);
+
     int deleteEntity(Key key);
 
     int deleteEntities(List<Key> keys, boolean useTransaction);
 
     List<Entity> selectEntities(SearchCondition condition, String orderBy);
 
+    /**
+     * Selects only requested columns and converts rows using given converter,
+     * allows to load partially filled entities or lightweight objects without reading unused columns.
+     *
+     * @param columns columns to read, null to read all columns.
+     */
+    <T> List<T> selectEntities(SearchCondition condition, String orderBy, String[] columns, CursorConverter<T> converter);
+
     List<Entity> selectEntities(Key key);
 
+    /**
+     * Selects entities of several keys with as few queries as possible,
+     * rows are ordered within chunks of {@link com.ls.database.Database#MAX_BIND_ARGUMENTS} keys.
+     */
+    List<Entity> selectEntitiesByKeys(Collection<Key> keys);
+
+    /**
+     * Same as {@link #selectEntitiesByKeys(Collection)}, but maps loaded entities by their keys,
+     * missing keys are not included into result.
+     */
+    Map<Key, Entity> selectEntityMap(Collection<Key> keys);
+
     List<Entity> selectAllEntities();
 
+    /**
+     * Returns iterator which reads entities lazily from database cursor,
+     * iterator has to be closed if iteration is stopped before the end.
+     */
+    EntityIterator<Entity> iterateEntities(SearchCondition condition, String orderBy);
+
+    EntityIterator<Entity> iterateAllEntities();
+
+    /**
+     * Returns page of entities using keyset pagination: rows are ordered by orderColumn and key column,
+     * next page starts right after the last row of previous one, so every page costs the same as the first one.
+     *
+     * @param condition additional condition, can be null.
+     * @param orderColumn NOT NULL column to order by before key column, null to order by key column only.
+     * @param token token of previous page, null to load the first page.
+     */
+    Page<Entity> selectPage(SearchCondition condition, String orderColumn, int pageSize, PageToken token);
+
+    Page<Entity> selectPage(int pageSize, PageToken token);
+
     void clear();
 
     boolean contains(Key key);
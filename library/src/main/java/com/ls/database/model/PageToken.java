@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.model;
+
+/**
+ * Continuation token of keyset pagination, holds ordering values of the last row of previous page.
+ * Token should be treated as opaque and passed back to load the next page.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class PageToken {
+
+    private final String orderColumn;
+    private final Object orderValue;
+    private final Object keyValue;
+
+    /**
+     * Values are kept with storage class of SQLite: Long, Double, String or null,
+     * so REAL values are not rounded by conversion to text.
+     */
+    public PageToken(String orderColumn, Object orderValue, Object keyValue) {
+        this.orderColumn = orderColumn;
+        this.orderValue = orderValue;
+        this.keyValue = keyValue;
+    }
+
+    /**
+     * Column the page is ordered by before key column, null if page is ordered by key column only.
+     */
+    public String getOrderColumn() {
+        return orderColumn;
+    }
+
+    public Object getOrderValue() {
+        return orderValue;
+    }
+
+    public Object getKeyValue() {
+        return keyValue;
+    }
+}
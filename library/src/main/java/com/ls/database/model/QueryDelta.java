@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Difference between two results of {@link com.ls.database.LiveQuery}, entities are matched by key.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class QueryDelta<Key, Entity> {
+
+    private final List<Entity> inserted;
+    private final List<Key> removed;
+    private final List<Entity> changed;
+
+    public QueryDelta(List<Entity> inserted, List<Key> removed, List<Entity> changed) {
+        this.inserted = Collections.unmodifiableList(inserted);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * @return entities which appeared in result.
+     */
+    public List<Entity> getInserted() {
+        return inserted;
+    }
+
+    /**
+     * @return keys of entities which disappeared from result.
+     */
+    public List<Key> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return entities which stayed in result, but are not equal to previous version.
+     */
+    public List<Entity> getChanged() {
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return inserted.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tables changed by one committed transaction or by one write outside of transaction.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class TableChangeEvent {
+
+    private final Map<String, Set<Object>> tableKeys;
+    private final boolean unknownTables;
+
+    /**
+     * @param tableKeys changed tables mapped to keys of changed rows, null value if keys are unknown.
+     * @param unknownTables true if some tables can't be determined, e.g. after raw SQL statement.
+     */
+    public TableChangeEvent(Map<String, Set<Object>> tableKeys, boolean unknownTables) {
+        this.tableKeys = Collections.unmodifiableMap(tableKeys);
+        this.unknownTables = unknownTables;
+    }
+
+    /**
+     * @return names of changed tables, doesn't include tables changed by raw SQL, see {@link #hasUnknownTables()}.
+     */
+    public Set<String> getTables() {
+        return tableKeys.keySet();
+    }
+
+    /**
+     * @return true if table was changed or could be changed by raw SQL.
+     */
+    public boolean isTableChanged(String table) {
+        return unknownTables || tableKeys.containsKey(table);
+    }
+
+    /**
+     * @return keys of changed rows reported by DAO, null if they are unknown, e.g. table was cleared
+     * or too many rows were changed.
+     */
+    public Set<Object> getKeys(String table) {
+        Set<Object> keys = tableKeys.get(table);
+        return keys != null ? Collections.unmodifiableSet(keys) : null;
+    }
+
+    public boolean hasUnknownTables() {
+        return unknownTables;
+    }
+
+    @Override
+    public String toString() {
+        return "TableChangeEvent{" +
+                "tables=" + tableKeys.keySet() +
+                ", unknownTables=" + unknownTables +
+                '}';
+    }
+}
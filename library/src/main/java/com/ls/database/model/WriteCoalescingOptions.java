@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.model;
+
+/**
+ * Options of write-behind queue which groups single-row writes into one transaction.
+ * Queued writes are flushed when the oldest of them waits for delayMillis or when maxBatchSize writes are queued.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class WriteCoalescingOptions {
+
+    public static final long DEFAULT_DELAY_MILLIS = 5;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+    private final long delayMillis;
+    private final int maxBatchSize;
+
+    /**
+     * @param delayMillis max time in milliseconds write waits in queue before flushing.
+     * @param maxBatchSize count of queued writes which triggers flushing without waiting for delay.
+     */
+    public WriteCoalescingOptions(long delayMillis, int maxBatchSize) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("Delay can't be negative");
+        }
+
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size has to be greater than 0");
+        }
+
+        this.delayMillis = delayMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public WriteCoalescingOptions() {
+        this(DEFAULT_DELAY_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+}
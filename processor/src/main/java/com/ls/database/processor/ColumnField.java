@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.processor;
+
+/**
+ * Annotated field of entity and the way generated code accesses it.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+class ColumnField {
+
+    private final String columnName;
+    private final ColumnType type;
+    private final boolean primitive;
+    private final boolean autoIncrement;
+    private final String typeName;
+    private final String getter;
+    private final String setter;
+
+    /**
+     * @param typeName canonical name of field type, used to resolve enum constants.
+     * @param getter expression which reads field of {@code entity} variable.
+     * @param setter field assignment or setter call of {@code entity} variable without value, e.g. {@code entity.setName(}.
+     */
+    ColumnField(String columnName, ColumnType type, boolean primitive, boolean autoIncrement, String typeName,
+                String getter, String setter) {
+        this.columnName = columnName;
+        this.type = type;
+        this.primitive = primitive;
+        this.autoIncrement = autoIncrement;
+        this.typeName = typeName;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    String getColumnName() {
+        return columnName;
+    }
+
+    ColumnType getType() {
+        return type;
+    }
+
+    boolean isPrimitive() {
+        return primitive;
+    }
+
+    boolean isAutoIncrement() {
+        return autoIncrement;
+    }
+
+    String getTypeName() {
+        return typeName;
+    }
+
+    String getGetter() {
+        return getter;
+    }
+
+    /**
+     * @return statement which assigns given expression to the field.
+     */
+    String buildSetter(String value) {
+        return setter.endsWith("(") ? setter + value + ");" : setter + " = " + value + ";";
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.processor;
+
+/**
+ * Supported types of entity fields and code which reads, binds and puts them into ContentValues.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+enum ColumnType {
+
+    LONG("readLongPrimitive", "0L", "readLong", "bindLong"),
+    INT("readIntPrimitive", "0", "readInteger", "bindLong"),
+    SHORT("readShortPrimitive", "(short) 0", "readShort", "bindLong"),
+    BYTE("readBytePrimitive", "(byte) 0", "readByte", "bindLong"),
+    DOUBLE("readDoublePrimitive", "0d", "readDouble", "bindDouble"),
+    FLOAT("readFloatPrimitive", "0f", "readFloat", "bindDouble"),
+    BOOLEAN("readBooleanPrimitive", "false", "readBoolean", "bindLong"),
+    STRING(null, null, "readString", "bindString"),
+    BLOB(null, null, "readBlob", "bindBlob"),
+    ENUM(null, null, "readString", "bindString");
+
+    private final String primitiveReadMethod;
+    private final String primitiveNullValue;
+    private final String readMethod;
+    private final String bindMethod;
+
+    ColumnType(String primitiveReadMethod, String primitiveNullValue, String readMethod, String bindMethod) {
+        this.primitiveReadMethod = primitiveReadMethod;
+        this.primitiveNullValue = primitiveNullValue;
+        this.readMethod = readMethod;
+        this.bindMethod = bindMethod;
+    }
+
+    /**
+     * @return method of CursorParser which reads primitive value by column index, null for reference types.
+     */
+    String getPrimitiveReadMethod() {
+        return primitiveReadMethod;
+    }
+
+    /**
+     * @return literal used by primitive read for NULL column value.
+     */
+    String getPrimitiveNullValue() {
+        return primitiveNullValue;
+    }
+
+    /**
+     * @return method of CursorParser which reads boxed value or null by column index.
+     */
+    String getReadMethod() {
+        return readMethod;
+    }
+
+    /**
+     * @return method of SQLiteStatement which binds non-null value.
+     */
+    String getBindMethod() {
+        return bindMethod;
+    }
+
+    boolean isNumeric() {
+        return primitiveReadMethod != null && this != BOOLEAN;
+    }
+}
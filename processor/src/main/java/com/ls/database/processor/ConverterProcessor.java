@@ -0,0 +1,384 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.processor;
+
+import com.ls.database.annotation.DatabaseColumn;
+import com.ls.database.annotation.DatabaseEntity;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates {@code EntityConverter} and {@code StatementBinder} implementation for every class annotated with
+ * {@link DatabaseEntity}. Generated code reads columns by indexes resolved once per cursor, uses primitive reads
+ * for primitive fields and binds values into compiled statement without ContentValues and boxing.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class ConverterProcessor extends AbstractProcessor {
+
+    private static final String CONVERTER_SUFFIX = "Converter";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(DatabaseEntity.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(DatabaseEntity.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@DatabaseEntity can be applied to classes only");
+                continue;
+            }
+
+            TypeElement entity = (TypeElement) element;
+            List<ColumnField> fields = collectFields(entity);
+
+            if (fields != null && checkEntity(entity, fields)) {
+                writeConverter(entity, fields);
+            }
+        }
+
+        return true;
+    }
+
+    private boolean checkEntity(TypeElement entity, List<ColumnField> fields) {
+        if (entity.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(entity, "Entity can't be abstract");
+            return false;
+        }
+
+        if (entity.getNestingKind() == NestingKind.MEMBER && !entity.getModifiers().contains(Modifier.STATIC)) {
+            error(entity, "Nested entity class has to be static");
+            return false;
+        }
+
+        if (fields.isEmpty()) {
+            error(entity, "Entity has no fields annotated with @DatabaseColumn");
+            return false;
+        }
+
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(entity.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+
+        error(entity, "Entity has to have constructor without arguments");
+        return false;
+    }
+
+    /**
+     * @return annotated fields of entity and its superclasses or null if any of them is invalid.
+     */
+    private List<ColumnField> collectFields(TypeElement entity) {
+        List<ColumnField> result = new ArrayList<>();
+        Set<String> columnNames = new HashSet<>();
+        boolean valid = true;
+
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement type = entity; type != null; type = getSuperclass(type)) {
+            hierarchy.add(0, type);
+        }
+
+        for (TypeElement type : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                DatabaseColumn column = field.getAnnotation(DatabaseColumn.class);
+                if (column == null) {
+                    continue;
+                }
+
+                ColumnField columnField = createField(entity, field, column);
+
+                if (columnField == null) {
+                    valid = false;
+                } else if (!columnNames.add(columnField.getColumnName())) {
+                    error(field, "Column " + column.value() + " is mapped more than once");
+                    valid = false;
+                } else {
+                    result.add(columnField);
+                }
+            }
+        }
+
+        return valid ? result : null;
+    }
+
+    private ColumnField createField(TypeElement entity, VariableElement field, DatabaseColumn column) {
+        if (field.getModifiers().contains(Modifier.STATIC)) {
+            error(field, "@DatabaseColumn can't be applied to static field");
+            return null;
+        }
+
+        if (column.value().isEmpty()) {
+            error(field, "Column name can't be empty");
+            return null;
+        }
+
+        TypeMirror typeMirror = field.asType();
+        boolean primitive = typeMirror.getKind().isPrimitive();
+        ColumnType type = resolveType(typeMirror);
+
+        if (type == null) {
+            error(field, "Type " + typeMirror + " is not supported");
+            return null;
+        }
+
+        if (column.autoIncrement() && !type.isNumeric()) {
+            error(field, "Only numeric column can be auto increment");
+            return null;
+        }
+
+        String fieldName = field.getSimpleName().toString();
+        String getter;
+        String setter;
+
+        if (isAccessible(entity, field)) {
+            getter = "entity." + fieldName;
+            setter = "entity." + fieldName;
+        } else {
+            String propertyName = getPropertyName(fieldName);
+            String getterName = findGetter(entity, propertyName, type == ColumnType.BOOLEAN);
+            String setterName = findSetter(entity, propertyName);
+
+            if (getterName == null || setterName == null) {
+                error(field, "Private field requires getter and setter of " + propertyName);
+                return null;
+            }
+
+            getter = "entity." + getterName + "()";
+            setter = "entity." + setterName + "(";
+        }
+
+        String typeName = primitive ? typeMirror.toString() : getCanonicalName(typeMirror);
+
+        return new ColumnField(column.value(), type, primitive, column.autoIncrement(), typeName, getter, setter);
+    }
+
+    private ColumnType resolveType(TypeMirror type) {
+        switch (type.getKind()) {
+            case LONG:
+                return ColumnType.LONG;
+            case INT:
+                return ColumnType.INT;
+            case SHORT:
+                return ColumnType.SHORT;
+            case BYTE:
+                return ColumnType.BYTE;
+            case DOUBLE:
+                return ColumnType.DOUBLE;
+            case FLOAT:
+                return ColumnType.FLOAT;
+            case BOOLEAN:
+                return ColumnType.BOOLEAN;
+            case ARRAY:
+                return type.toString().equals("byte[]") ? ColumnType.BLOB : null;
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+
+        Element element = ((DeclaredType) type).asElement();
+        if (element.getKind() == ElementKind.ENUM) {
+            return ColumnType.ENUM;
+        }
+
+        switch (((TypeElement) element).getQualifiedName().toString()) {
+            case "java.lang.Long":
+                return ColumnType.LONG;
+            case "java.lang.Integer":
+                return ColumnType.INT;
+            case "java.lang.Short":
+                return ColumnType.SHORT;
+            case "java.lang.Byte":
+                return ColumnType.BYTE;
+            case "java.lang.Double":
+                return ColumnType.DOUBLE;
+            case "java.lang.Float":
+                return ColumnType.FLOAT;
+            case "java.lang.Boolean":
+                return ColumnType.BOOLEAN;
+            case "java.lang.String":
+                return ColumnType.STRING;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Field is accessible from generated class in the package of entity if it's public or package visible there.
+     */
+    private boolean isAccessible(TypeElement entity, VariableElement field) {
+        Set<Modifier> modifiers = field.getModifiers();
+
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)) {
+            return false;
+        }
+
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+
+        PackageElement entityPackage = processingEnv.getElementUtils().getPackageOf(entity);
+        PackageElement fieldPackage = processingEnv.getElementUtils().getPackageOf(field);
+
+        return entityPackage.equals(fieldPackage);
+    }
+
+    /**
+     * Strips Android field prefix, e.g. mName -> Name, name -> Name.
+     */
+    private static String getPropertyName(String fieldName) {
+        if (fieldName.length() > 1 && fieldName.charAt(0) == 'm' && Character.isUpperCase(fieldName.charAt(1))) {
+            return fieldName.substring(1);
+        }
+
+        return Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+
+    private String findGetter(TypeElement entity, String propertyName, boolean isBoolean) {
+        for (ExecutableElement method : getMethods(entity)) {
+            String name = method.getSimpleName().toString();
+
+            if (method.getParameters().isEmpty() && method.getReturnType().getKind() != TypeKind.VOID
+                    && (name.equals("get" + propertyName) || isBoolean && name.equals("is" + propertyName))) {
+                return name;
+            }
+        }
+
+        return null;
+    }
+
+    private String findSetter(TypeElement entity, String propertyName) {
+        for (ExecutableElement method : getMethods(entity)) {
+            if (method.getParameters().size() == 1 && method.getSimpleName().toString().equals("set" + propertyName)) {
+                return method.getSimpleName().toString();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return non-private methods of entity and its superclasses.
+     */
+    private List<ExecutableElement> getMethods(TypeElement entity) {
+        List<ExecutableElement> result = new ArrayList<>();
+
+        for (TypeElement type = entity; type != null; type = getSuperclass(type)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (!method.getModifiers().contains(Modifier.PRIVATE) && !method.getModifiers().contains(Modifier.STATIC)) {
+                    result.add(method);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static TypeElement getSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private static String getCanonicalName(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        }
+
+        return type.toString();
+    }
+
+    private void writeConverter(TypeElement entity, List<ColumnField> fields) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+
+        //nested classes are flattened, e.g. Outer.Inner -> Outer_InnerConverter
+        String entityName = entity.getQualifiedName().toString();
+        String className = (packageName.isEmpty() ? entityName : entityName.substring(packageName.length() + 1))
+                .replace('.', '_') + CONVERTER_SUFFIX;
+
+        ConverterWriter converterWriter = new ConverterWriter(packageName, className, entityName, fields);
+
+        Writer writer = null;
+        try {
+            String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, entity);
+
+            writer = file.openWriter();
+            converterWriter.write(writer);
+        } catch (IOException e) {
+            error(entity, "Unable to write converter: " + e.getMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    error(entity, "Unable to write converter: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void error(Element element, String message) {
+        Messager messager = processingEnv.getMessager();
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
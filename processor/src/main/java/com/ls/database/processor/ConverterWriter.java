@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes source of converter class for one entity.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+class ConverterWriter {
+
+    private final String packageName;
+    private final String className;
+    private final String entityName;
+    private final List<ColumnField> fields;
+
+    /**
+     * @param packageName package of entity, empty for default package.
+     * @param className simple name of generated class.
+     * @param entityName canonical name of entity.
+     */
+    ConverterWriter(String packageName, String className, String entityName, List<ColumnField> fields) {
+        this.packageName = packageName;
+        this.className = className;
+        this.entityName = entityName;
+        this.fields = fields;
+    }
+
+    void write(Writer writer) throws IOException {
+        StringBuilder source = new StringBuilder(2048 + fields.size() * 512);
+
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        source.append("import android.content.ContentValues;\n")
+                .append("import android.database.sqlite.SQLiteStatement;\n\n")
+                .append("import com.ls.database.EntityConverter;\n")
+                .append("import com.ls.database.StatementBinder;\n")
+                .append("import com.ls.database.model.CursorParser;\n\n")
+                .append("/**\n")
+                .append(" * Generated from {@link ").append(entityName).append("}, do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(className)
+                .append(" implements EntityConverter<").append(entityName).append(">, StatementBinder<")
+                .append(entityName).append("> {\n\n");
+
+        writeColumns(source);
+        writeToContentValues(source);
+        writeToEntity(source);
+        writeGetColumnNames(source);
+        writeBindValues(source);
+
+        source.append("}\n");
+
+        writer.write(source.toString());
+    }
+
+    private void writeColumns(StringBuilder source) {
+        source.append("    private static final String[] COLUMNS = {\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            source.append("            ").append(quote(fields.get(i).getColumnName()))
+                    .append(i < fields.size() - 1 ? ",\n" : "\n");
+        }
+
+        source.append("    };\n\n");
+    }
+
+    private void writeToContentValues(StringBuilder source) {
+        source.append("    @Override\n")
+                .append("    public ContentValues toContentValues(").append(entityName).append(" entity) {\n")
+                .append("        ContentValues values = new ContentValues(").append(fields.size()).append(");\n\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            ColumnField field = fields.get(i);
+            String column = quote(field.getColumnName());
+            String value = field.getGetter();
+
+            if (field.getType() == ColumnType.ENUM) {
+                value = field.getGetter() + " != null ? " + field.getGetter() + ".name() : null";
+            }
+
+            if (field.isAutoIncrement()) {
+                source.append("        if (").append(buildAssignedCondition(field, value)).append(") {\n")
+                        .append("            values.put(").append(column).append(", ").append(value).append(");\n")
+                        .append("        }\n")
+                        .append(i < fields.size() - 1 ? "\n" : "");
+            } else {
+                source.append("        values.put(").append(column).append(", ").append(value).append(");\n");
+            }
+        }
+
+        source.append("\n        return values;\n")
+                .append("    }\n\n");
+    }
+
+    private void writeToEntity(StringBuilder source) {
+        source.append("    @Override\n")
+                .append("    public ").append(entityName).append(" toEntity(CursorParser parser) {\n")
+                .append("        int[] indexes = parser.getColumnIndexes(COLUMNS);\n")
+                .append("        ").append(entityName).append(" entity = new ").append(entityName).append("();\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            ColumnField field = fields.get(i);
+            ColumnType type = field.getType();
+            String index = "indexes[" + i + "]";
+
+            source.append('\n')
+                    .append("        if (").append(index).append(" != -1) {\n");
+
+            if (type == ColumnType.ENUM) {
+                source.append("            String name = parser.readString(").append(index).append(");\n")
+                        .append("            ").append(field.buildSetter("name != null && name.length() > 0 ? "
+                        + field.getTypeName() + ".valueOf(name) : null")).append('\n');
+            } else if (field.isPrimitive()) {
+                source.append("            ").append(field.buildSetter("parser." + type.getPrimitiveReadMethod()
+                        + "(" + index + ", " + type.getPrimitiveNullValue() + ")")).append('\n');
+            } else {
+                source.append("            ").append(field.buildSetter("parser." + type.getReadMethod()
+                        + "(" + index + ")")).append('\n');
+            }
+
+            source.append("        }\n");
+        }
+
+        source.append("\n        return entity;\n")
+                .append("    }\n\n");
+    }
+
+    private void writeGetColumnNames(StringBuilder source) {
+        source.append("    @Override\n")
+                .append("    public String[] getColumnNames() {\n")
+                .append("        return COLUMNS;\n")
+                .append("    }\n\n");
+    }
+
+    private void writeBindValues(StringBuilder source) {
+        source.append("    @Override\n")
+                .append("    public void bindValues(SQLiteStatement statement, ").append(entityName).append(" entity) {\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            ColumnField field = fields.get(i);
+            int bindIndex = i + 1;
+
+            if (i > 0) {
+                source.append('\n');
+            }
+
+            if (field.isPrimitive() && !field.isAutoIncrement()) {
+                source.append("        ").append(buildBind(field, bindIndex, field.getGetter())).append('\n');
+                continue;
+            }
+
+            //value is read once, getter can be not trivial
+            String value = "value" + bindIndex;
+            String typeName = field.isPrimitive() ? field.getType().name().toLowerCase(Locale.US) : field.getTypeName();
+
+            source.append("        ").append(typeName).append(' ').append(value).append(" = ")
+                    .append(field.getGetter()).append(";\n")
+                    .append("        if (").append(buildAssignedCondition(field, value)).append(") {\n")
+                    .append("            ").append(buildBind(field, bindIndex, value)).append('\n')
+                    .append("        } else {\n")
+                    .append("            statement.bindNull(").append(bindIndex).append(");\n")
+                    .append("        }\n");
+        }
+
+        source.append("    }\n");
+    }
+
+    private static String buildBind(ColumnField field, int bindIndex, String value) {
+        ColumnType type = field.getType();
+
+        if (type == ColumnType.ENUM) {
+            value = value + ".name()";
+        } else if (type == ColumnType.BOOLEAN) {
+            value = value + " ? 1 : 0";
+        }
+
+        return "statement." + type.getBindMethod() + "(" + bindIndex + ", " + value + ");";
+    }
+
+    /**
+     * @return condition which is true if value has to be written: not null and, for auto increment columns, not 0.
+     */
+    private static String buildAssignedCondition(ColumnField field, String value) {
+        if (field.isPrimitive()) {
+            return value + " != 0";
+        }
+
+        if (field.isAutoIncrement()) {
+            return value + " != null && " + value + " != 0";
+        }
+
+        return value + " != null";
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lemberg Solutions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ls.database.processor;
+
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+/**
+ * Compiles entities with {@link ConverterProcessor} against minimal stubs of Android and library classes
+ * used by generated converters.
+ *
+ * @author Stanislav Bodnar, Lemberg Solutions
+ */
+public class ConverterProcessorTest {
+
+    @Test
+    public void generatesConverter() {
+        JavaFileObject entity = JavaFileObjects.forSourceLines("test.Note",
+                "package test;",
+                "",
+                "import com.ls.database.annotation.DatabaseColumn;",
+                "import com.ls.database.annotation.DatabaseEntity;",
+                "",
+                "@DatabaseEntity",
+                "public class Note {",
+                "",
+                "    @DatabaseColumn(value = \"_id\", autoIncrement = true)",
+                "    long id;",
+                "",
+                "    @DatabaseColumn(\"title\")",
+                "    String title;",
+                "}");
+
+        JavaFileObject expectedConverter = JavaFileObjects.forSourceLines("test.NoteConverter",
+                "package test;",
+                "",
+                "import android.content.ContentValues;",
+                "import android.database.sqlite.SQLiteStatement;",
+                "",
+                "import com.ls.database.EntityConverter;",
+                "import com.ls.database.StatementBinder;",
+                "import com.ls.database.model.CursorParser;",
+                "",
+                "public final class NoteConverter implements EntityConverter<test.Note>, StatementBinder<test.Note> {",
+                "",
+                "    private static final String[] COLUMNS = {",
+                "            \"_id\",",
+                "            \"title\"",
+                "    };",
+                "",
+                "    @Override",
+                "    public ContentValues toContentValues(test.Note entity) {",
+                "        ContentValues values = new ContentValues(2);",
+                "",
+                "        if (entity.id != 0) {",
+                "            values.put(\"_id\", entity.id);",
+                "        }",
+                "",
+                "        values.put(\"title\", entity.title);",
+                "",
+                "        return values;",
+                "    }",
+                "",
+                "    @Override",
+                "    public test.Note toEntity(CursorParser parser) {",
+                "        int[] indexes = parser.getColumnIndexes(COLUMNS);",
+                "        test.Note entity = new test.Note();",
+                "",
+                "        if (indexes[0] != -1) {",
+                "            entity.id = parser.readLongPrimitive(indexes[0], 0L);",
+                "        }",
+                "",
+                "        if (indexes[1] != -1) {",
+                "            entity.title = parser.readString(indexes[1]);",
+                "        }",
+                "",
+                "        return entity;",
+                "    }",
+                "",
+                "    @Override",
+                "    public String[] getColumnNames() {",
+                "        return COLUMNS;",
+                "    }",
+                "",
+                "    @Override",
+                "    public void bindValues(SQLiteStatement statement, test.Note entity) {",
+                "        long value1 = entity.id;",
+                "        if (value1 != 0) {",
+                "            statement.bindLong(1, value1);",
+                "        } else {",
+                "            statement.bindNull(1);",
+                "        }",
+                "",
+                "        java.lang.String value2 = entity.title;",
+                "        if (value2 != null) {",
+                "            statement.bindString(2, value2);",
+                "        } else {",
+                "            statement.bindNull(2);",
+                "        }",
+                "    }",
+                "}");
+
+        assertAbout(javaSources())
+                .that(withStubs(entity))
+                .processedWith(new ConverterProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expectedConverter);
+    }
+
+    @Test
+    public void privateFieldRequiresAccessors() {
+        JavaFileObject entity = JavaFileObjects.forSourceLines("test.Note",
+                "package test;",
+                "",
+                "import com.ls.database.annotation.DatabaseColumn;",
+                "import com.ls.database.annotation.DatabaseEntity;",
+                "",
+                "@DatabaseEntity",
+                "public class Note {",
+                "",
+                "    @DatabaseColumn(\"title\")",
+                "    private String mTitle;",
+                "",
+                "    public String getTitle() {",
+                "        return mTitle;",
+                "    }",
+                "}");
+
+        assertAbout(javaSources())
+                .that(withStubs(entity))
+                .processedWith(new ConverterProcessor())
+                .failsToCompile()
+                .withErrorContaining("Private field requires getter and setter of Title")
+                .in(entity)
+                .onLine(10);
+    }
+
+    @Test
+    public void unsupportedTypeIsRejected() {
+        JavaFileObject entity = JavaFileObjects.forSourceLines("test.Note",
+                "package test;",
+                "",
+                "import com.ls.database.annotation.DatabaseColumn;",
+                "import com.ls.database.annotation.DatabaseEntity;",
+                "",
+                "@DatabaseEntity",
+                "public class Note {",
+                "",
+                "    @DatabaseColumn(\"created\")",
+                "    java.util.Date created;",
+                "}");
+
+        assertAbout(javaSources())
+                .that(withStubs(entity))
+                .processedWith(new ConverterProcessor())
+                .failsToCompile()
+                .withErrorContaining("Type java.util.Date is not supported");
+    }
+
+    /**
+     * Generated converters reference Android and library classes which are not on classpath of this module.
+     */
+    private static List<JavaFileObject> withStubs(JavaFileObject... sources) {
+        List<JavaFileObject> result = new ArrayList<>(Arrays.asList(sources));
+
+        result.add(JavaFileObjects.forSourceLines("android.content.ContentValues",
+                "package android.content;",
+                "",
+                "public final class ContentValues {",
+                "    public ContentValues(int size) {}",
+                "    public void put(String key, Long value) {}",
+                "    public void put(String key, String value) {}",
+                "}"));
+
+        result.add(JavaFileObjects.forSourceLines("android.database.sqlite.SQLiteStatement",
+                "package android.database.sqlite;",
+                "",
+                "public final class SQLiteStatement {",
+                "    public void bindLong(int index, long value) {}",
+                "    public void bindString(int index, String value) {}",
+                "    public void bindNull(int index) {}",
+                "}"));
+
+        result.add(JavaFileObjects.forSourceLines("com.ls.database.model.CursorParser",
+                "package com.ls.database.model;",
+                "",
+                "public class CursorParser {",
+                "    public int[] getColumnIndexes(String[] columnNames) { return null; }",
+                "    public long readLongPrimitive(int index, long nullValue) { return nullValue; }",
+                "    public String readString(int index) { return null; }",
+                "}"));
+
+        result.add(JavaFileObjects.forSourceLines("com.ls.database.EntityConverter",
+                "package com.ls.database;",
+                "",
+                "public interface EntityConverter<Entity> {",
+                "    android.content.ContentValues toContentValues(Entity entity);",
+                "    Entity toEntity(com.ls.database.model.CursorParser parser);",
+                "}"));
+
+        result.add(JavaFileObjects.forSourceLines("com.ls.database.StatementBinder",
+                "package com.ls.database;",
+                "",
+                "public interface StatementBinder<Entity> {",
+                "    String[] getColumnNames();",
+                "    void bindValues(android.database.sqlite.SQLiteStatement statement, Entity entity);",
+                "}"));
+
+        return result;
+    }
+}
@@ -23,10 +23,15 @@
  */
 package com.ls.databasedemo.model.db.dao;
 
+import com.ls.database.CursorConverter;
 import com.ls.database.DatabaseRegister;
+import com.ls.database.model.CursorParser;
 import com.ls.database.model.EntityHolder;
+import com.ls.database.model.Page;
+import com.ls.database.model.PageToken;
 import com.ls.database.model.SearchCondition;
 import com.ls.databasedemo.model.db.DatabaseHelper;
+import com.ls.databasedemo.model.db.Tables;
 import com.ls.databasedemo.model.db.entity.Contact;
 
 import android.content.Context;
@@ -289,6 +294,78 @@ public class ContactDaoTestCase extends InstrumentationTestCase {
         assertTrue("Test entities are not present in database", allEntities.containsAll(selectedEntities));
     }
 
+    public void testSelectEntities_projection() throws Exception {
+        List<Contact> entities = createContactEntities();
+
+        ContactDAO contactDao = new ContactDAO(databaseRegister);
+        contactDao.insertEntities(entities, true);
+
+        List<String> expectedEmails = new ArrayList<>();
+        for (Contact contact : entities) {
+            expectedEmails.add(contact.getEmail());
+        }
+
+        List<String> actualEmails = contactDao.selectEntities(
+                new SearchCondition(null, null),
+                Tables.Contacts.COLUMN_ID,
+                new String[]{Tables.Contacts.COLUMN_EMAIL},
+                new CursorConverter<String>() {
+
+                    @Override
+                    public String toEntity(CursorParser parser) {
+                        assertEquals("Only requested columns have to be read", 1, parser.getColumnCount());
+                        return parser.readString(Tables.Contacts.COLUMN_EMAIL);
+                    }
+                }
+        );
+
+        assertEquals("Emails are not equal", expectedEmails, actualEmails);
+    }
+
+    public void testSelectPages() throws Exception {
+        List<Contact> entities = createContactEntities();
+
+        ContactDAO contactDao = new ContactDAO(databaseRegister);
+        contactDao.insertEntities(entities, true);
+
+        List<Contact> actualEntities = new ArrayList<>();
+        int pageCount = 0;
+
+        PageToken token = null;
+        do {
+            Page<Contact> page = contactDao.selectPage(3, token);
+            actualEntities.addAll(page.getEntities());
+            token = page.getNextPageToken();
+            pageCount++;
+        } while (token != null);
+
+        assertEquals("Entities are not equal", entities, actualEntities);
+        assertEquals("Wrong count of pages", 4, pageCount);
+    }
+
+    public void testSelectPages_byOrderColumn() throws Exception {
+        List<Contact> entities = createContactEntities();
+
+        ContactDAO contactDao = new ContactDAO(databaseRegister);
+        contactDao.insertEntities(entities, true);
+
+        List<Contact> expectedEntities = contactDao.selectEntities(
+                new SearchCondition(null, null),
+                Tables.Contacts.COLUMN_FIRST_NAME + "," + Tables.Contacts.COLUMN_ID
+        );
+
+        List<Contact> actualEntities = new ArrayList<>();
+
+        PageToken token = null;
+        do {
+            Page<Contact> page = contactDao.selectPage(null, Tables.Contacts.COLUMN_FIRST_NAME, 4, token);
+            actualEntities.addAll(page.getEntities());
+            token = page.getNextPageToken();
+        } while (token != null);
+
+        assertEquals("Entities are not equal", expectedEntities, actualEntities);
+    }
+
     public void testContains() throws Exception {
         List<Contact> entities = createContactEntities();
 
@@ -23,29 +23,34 @@
  */
 package com.ls.databasedemo;
 
+import com.ls.database.model.DatabaseCallback;
+import com.ls.database.model.Page;
+import com.ls.database.model.PageToken;
 import com.ls.databasedemo.model.db.DatabaseManager;
 import com.ls.databasedemo.model.db.entity.Contact;
 
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v7.app.ActionBarActivity;
 import android.view.View;
+import android.widget.AbsListView;
 import android.widget.ArrayAdapter;
 import android.widget.ListView;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
-public class MainActivity extends ActionBarActivity implements View.OnClickListener {
+public class MainActivity extends ActionBarActivity implements View.OnClickListener, AbsListView.OnScrollListener {
 
     private ArrayAdapter<Contact> contactAdapter;
+    private PageToken nextPageToken;
 
-    private AsyncTask<List<Contact>, Void, List<Contact>> generatorTask;
-    private AsyncTask<Void, Void, List<Contact>> loaderTask;
-    private AsyncTask<Void, Void, Void> clearTask;
+    private Future<Void> generatorFuture;
+    private Future<Page<Contact>> loaderFuture;
+    private Future<Void> clearFuture;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -61,14 +66,14 @@ public class MainActivity extends ActionBarActivity implements View.OnClickListe
     protected void onStart() {
         super.onStart();
 
-        startLoaderTask();
+        loadContacts(null);
     }
 
     @Override
     protected void onDestroy() {
-        stopTask(generatorTask);
-        stopTask(loaderTask);
-        stopTask(clearTask);
+        cancel(generatorFuture);
+        cancel(loaderFuture);
+        cancel(clearFuture);
 
         super.onDestroy();
     }
@@ -76,6 +81,7 @@ public class MainActivity extends ActionBarActivity implements View.OnClickListe
     private void initViews() {
         ListView listView = (ListView) findViewById(R.id.list);
         listView.setAdapter(contactAdapter);
+        listView.setOnScrollListener(this);
 
         findViewById(R.id.generate).setOnClickListener(this);
         findViewById(R.id.clear).setOnClickListener(this);
@@ -85,39 +91,120 @@ public class MainActivity extends ActionBarActivity implements View.OnClickListe
     public void onClick(View v) {
         switch (v.getId()) {
             case R.id.generate:
-                startGeneratorTask();
+                generateContacts();
                 break;
 
             case R.id.clear:
-                startClearTask();
+                clearContacts();
                 break;
         }
     }
 
-    private void startGeneratorTask() {
-        stopTask(generatorTask);
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+    }
 
-        generatorTask = new ContactGeneratorTask();
-        generatorTask.execute(generateContacts());
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        boolean lastItemVisible = totalItemCount > 0 && firstVisibleItem + visibleItemCount >= totalItemCount;
+        boolean loading = loaderFuture != null && !loaderFuture.isDone();
+
+        if (lastItemVisible && nextPageToken != null && !loading) {
+            loadContacts(nextPageToken);
+        }
     }
 
-    private void startLoaderTask() {
-        stopTask(loaderTask);
+    private void generateContacts() {
+        cancel(generatorFuture);
+
+        showProgress();
+        lockButtons();
+
+        generatorFuture = DatabaseManager.getInstance().addContactsAsync(createContacts(), new DatabaseCallback<Void>() {
+
+            @Override
+            public void onSuccess(Void result) {
+                //new contacts may belong to pages which are not loaded yet, so list is reloaded with persisted ids
+                loadContacts(null);
+            }
 
-        loaderTask = new ContactLoaderTask();
-        loaderTask.execute();
+            @Override
+            public void onError(Throwable error) {
+                hideProgress();
+                unlockButtons();
+            }
+        });
     }
 
-    private void startClearTask() {
-        stopTask(clearTask);
+    /**
+     * @param token token of the next page, null to reload list from the first page.
+     */
+    private void loadContacts(PageToken token) {
+        cancel(loaderFuture);
+
+        final boolean firstPage = token == null;
+
+        if (firstPage) {
+            showProgress();
+            lockButtons();
+        }
+
+        loaderFuture = DatabaseManager.getInstance().loadContactsAsync(token, new DatabaseCallback<Page<Contact>>() {
+
+            @Override
+            public void onSuccess(Page<Contact> page) {
+                if (firstPage) {
+                    hideProgress();
+                    unlockButtons();
+
+                    contactAdapter.clear();
+                }
 
-        clearTask = new ContactClearTask();
-        clearTask.execute();
+                nextPageToken = page.getNextPageToken();
+
+                for (Contact contact : page.getEntities()) {
+                    contactAdapter.add(contact);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                if (firstPage) {
+                    hideProgress();
+                    unlockButtons();
+                }
+            }
+        });
     }
 
-    private void stopTask(AsyncTask task) {
-        if (task != null) {
-            task.cancel(false);
+    private void clearContacts() {
+        cancel(clearFuture);
+
+        showProgress();
+        lockButtons();
+
+        clearFuture = DatabaseManager.getInstance().clearContactsAsync(new DatabaseCallback<Void>() {
+
+            @Override
+            public void onSuccess(Void result) {
+                hideProgress();
+                unlockButtons();
+
+                nextPageToken = null;
+                contactAdapter.clear();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                hideProgress();
+                unlockButtons();
+            }
+        });
+    }
+
+    private void cancel(Future<?> future) {
+        if (future != null) {
+            future.cancel(false);
         }
     }
 
@@ -141,7 +228,7 @@ public class MainActivity extends ActionBarActivity implements View.OnClickListe
         findViewById(R.id.clear).setEnabled(true);
     }
 
-    private List<Contact> generateContacts() {
+    private List<Contact> createContacts() {
         List<Contact> contacts = new ArrayList<>();
 
         for (int i = 0; i < 10; i++) {
@@ -155,84 +242,4 @@ public class MainActivity extends ActionBarActivity implements View.OnClickListe
 
         return contacts;
     }
-
-    private class ContactGeneratorTask extends AsyncTask<List<Contact>, Void, List<Contact>> {
-
-        @Override
-        protected void onPreExecute() {
-            showProgress();
-            lockButtons();
-        }
-
-        @Override
-        protected List<Contact> doInBackground(List<Contact>... list) {
-            if (list.length != 0 ||  list[0] != null) {
-                List<Contact> contacts = list[0];
-                DatabaseManager.getInstance().addContacts(contacts);
-
-                return contacts;
-            }
-            return new ArrayList<>();
-        }
-
-        @Override
-        protected void onPostExecute(List<Contact> list) {
-            hideProgress();
-            unlockButtons();
-
-            for (Contact contact : list) {
-                contactAdapter.add(contact);
-            }
-        }
-    }
-
-    private class ContactLoaderTask extends AsyncTask<Void, Void, List<Contact>> {
-
-        @Override
-        protected void onPreExecute() {
-            showProgress();
-            lockButtons();
-        }
-
-        @Override
-        protected List<Contact> doInBackground(Void... params) {
-            return DatabaseManager.getInstance().loadContacts();
-        }
-
-        @Override
-        protected void onPostExecute(List<Contact> list) {
-            hideProgress();
-            unlockButtons();
-
-            contactAdapter.clear();
-
-            for (Contact contact : list) {
-                contactAdapter.add(contact);
-            }
-        }
-    }
-
-    private class ContactClearTask extends AsyncTask<Void, Void, Void> {
-
-        @Override
-        protected void onPreExecute() {
-            showProgress();
-            lockButtons();
-        }
-
-        @Override
-        protected Void doInBackground(Void... params) {
-            DatabaseManager.getInstance().clearContacts();
-
-            return null;
-        }
-
-        @Override
-        protected void onPostExecute(Void aVoid) {
-            hideProgress();
-            unlockButtons();
-
-            contactAdapter.clear();
-        }
-    }
 }
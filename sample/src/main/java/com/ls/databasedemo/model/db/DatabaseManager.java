@@ -24,18 +24,25 @@
 package com.ls.databasedemo.model.db;
 
 import android.content.Context;
+import com.ls.database.AsyncDAO;
 import com.ls.database.BaseSQLiteOpenHelper;
 import com.ls.database.DatabaseRegister;
+import com.ls.database.model.DatabaseCallback;
+import com.ls.database.model.Page;
+import com.ls.database.model.PageToken;
 import com.ls.databasedemo.model.db.dao.ContactDAO;
 import com.ls.databasedemo.model.db.entity.Contact;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
 public class DatabaseManager {
 
+    public static final int CONTACTS_PAGE_SIZE = 50;
+
     private static DatabaseManager INSTANCE;
 
     public synchronized static void init(Context context) {
@@ -54,6 +61,7 @@ public class DatabaseManager {
 
     private DatabaseRegister databaseRegister;
     private ContactDAO contactDAO;
+    private AsyncDAO<Long, Contact> asyncContactDAO;
 
     private DatabaseManager(Context context) {
         Context appContext = context.getApplicationContext();
@@ -61,6 +69,7 @@ public class DatabaseManager {
         databaseRegister = new DatabaseRegister(appContext);
 
         contactDAO = new ContactDAO(databaseRegister);
+        asyncContactDAO = new AsyncDAO<>(contactDAO);
     }
 
     public void registerDatabase(BaseSQLiteOpenHelper sqLiteOpenHelper) {
@@ -76,7 +85,29 @@ public class DatabaseManager {
         return contacts;
     }
 
+    /**
+     * @param token token of previous page, null to load the first page.
+     */
+    public Page<Contact> loadContacts(PageToken token) {
+        return contactDAO.selectPage(CONTACTS_PAGE_SIZE, token);
+    }
+
     public void clearContacts() {
         contactDAO.clear();
     }
+
+    public Future<Void> addContactsAsync(List<Contact> contacts, DatabaseCallback<Void> callback) {
+        return asyncContactDAO.insertOrReplaceEntities(contacts, true, callback);
+    }
+
+    /**
+     * @param token token of previous page, null to load the first page.
+     */
+    public Future<Page<Contact>> loadContactsAsync(PageToken token, DatabaseCallback<Page<Contact>> callback) {
+        return asyncContactDAO.selectPage(CONTACTS_PAGE_SIZE, token, callback);
+    }
+
+    public Future<Void> clearContactsAsync(DatabaseCallback<Void> callback) {
+        return asyncContactDAO.clear(callback);
+    }
 }
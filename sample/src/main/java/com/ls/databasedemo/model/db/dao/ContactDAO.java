@@ -26,18 +26,18 @@ package com.ls.databasedemo.model.db.dao;
 import com.ls.database.BaseDAO;
 import com.ls.database.DatabaseRegister;
 import com.ls.database.EntityConverter;
-import com.ls.database.model.CursorParser;
 import com.ls.database.model.SearchCondition;
 import com.ls.databasedemo.model.db.DatabaseHelper;
 import com.ls.databasedemo.model.db.Tables;
 import com.ls.databasedemo.model.db.entity.Contact;
-
-import android.content.ContentValues;
+import com.ls.databasedemo.model.db.entity.ContactConverter;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
-public class ContactDAO extends BaseDAO<Long, Contact> implements EntityConverter<Contact> {
+public class ContactDAO extends BaseDAO<Long, Contact> {
+
+    private final ContactConverter converter = new ContactConverter();
 
     public ContactDAO(DatabaseRegister databaseRegister) {
         super(databaseRegister);
@@ -69,35 +69,12 @@ public class ContactDAO extends BaseDAO<Long, Contact> implements EntityConverte
     }
 
     @Override
-    protected EntityConverter<Contact> getEntityConverter() {
-        return this;
-    }
-
-    @Override
-    public ContentValues toContentValues(Contact contact) {
-        ContentValues contentValues = new ContentValues();
-
-        //for case when user got entity from database where id is autoincrement column
-        if (contact.getId() > 0) {
-            contentValues.put(Tables.Contacts.COLUMN_ID, contact.getId());
-        }
-
-        contentValues.put(Tables.Contacts.COLUMN_FIRST_NAME, contact.getFirstName());
-        contentValues.put(Tables.Contacts.COLUMN_LAST_NAME, contact.getLastName());
-        contentValues.put(Tables.Contacts.COLUMN_EMAIL, contact.getEmail());
-
-        return contentValues;
+    protected String getKeyColumnName() {
+        return Tables.Contacts.COLUMN_ID;
     }
 
     @Override
-    public Contact toEntity(CursorParser parser) {
-        Contact contact = new Contact();
-
-        contact.setId(parser.readLong(Tables.Contacts.COLUMN_ID));
-        contact.setFirstName(parser.readString(Tables.Contacts.COLUMN_FIRST_NAME));
-        contact.setLastName(parser.readString(Tables.Contacts.COLUMN_LAST_NAME));
-        contact.setEmail(parser.readString(Tables.Contacts.COLUMN_EMAIL));
-
-        return contact;
+    protected EntityConverter<Contact> getEntityConverter() {
+        return converter;
     }
 }
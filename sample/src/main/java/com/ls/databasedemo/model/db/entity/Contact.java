@@ -23,17 +23,30 @@
  */
 package com.ls.databasedemo.model.db.entity;
 
+import com.ls.database.annotation.DatabaseColumn;
+import com.ls.database.annotation.DatabaseEntity;
+import com.ls.databasedemo.model.db.Tables;
+
 import android.os.Parcel;
 import android.os.Parcelable;
 
 /**
  * @author Stanislav Bodnar, Lemberg Solutions
  */
+@DatabaseEntity
 public class Contact implements Parcelable {
 
+    //id is autoincrement column, entity created by user has 0 id
+    @DatabaseColumn(value = Tables.Contacts.COLUMN_ID, autoIncrement = true)
     private long id;
+
+    @DatabaseColumn(Tables.Contacts.COLUMN_FIRST_NAME)
     private String firstName;
+
+    @DatabaseColumn(Tables.Contacts.COLUMN_LAST_NAME)
     private String lastName;
+
+    @DatabaseColumn(Tables.Contacts.COLUMN_EMAIL)
     private String email;
 
     public Contact(long id, String firstName, String lastName, String email) {